@@ -0,0 +1,53 @@
+package com.spring.library.benchmarks;
+
+import com.spring.library.domain.Genre;
+import com.spring.library.domain.Role;
+import com.spring.library.service.BookService;
+import com.spring.library.service.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormParsingBenchmark {
+    private final BookService bookService = new BookService();
+    private final UserService userService = new UserService();
+
+    private Map<String, String> bookForm;
+    private Map<String, String> rolesForm;
+
+    @Setup
+    public void setUp() {
+        // the same shape as the add-book and update-roles forms, selected items are sent as "on"
+        bookForm = new HashMap<>();
+        bookForm.put("_csrf", "3f1c6b1e-5f0e-4a53-9d3c-0b8a7c0f9a11");
+        bookForm.put("selectedWriter", "42");
+        bookForm.put("bookName", "The Name of the Book");
+        bookForm.put("annotation", "Annotation");
+        bookForm.put("publicationDate", "2019-03-01");
+        bookForm.put(Genre.DRAMA.name(), "on");
+        bookForm.put(Genre.FANTASY.name(), "on");
+
+        rolesForm = new HashMap<>();
+        rolesForm.put("_csrf", "3f1c6b1e-5f0e-4a53-9d3c-0b8a7c0f9a11");
+        rolesForm.put(Role.ADMIN.name(), "on");
+    }
+
+    @Benchmark
+    public Set<Genre> selectedGenres() {
+        return bookService.getSelectedGenresFromForm(bookForm);
+    }
+
+    @Benchmark
+    public Set<Role> selectedRoles() {
+        return userService.getSelectedRolesFromForm(rolesForm);
+    }
+}
@@ -0,0 +1,140 @@
+package com.spring.library.benchmarks;
+
+import com.spring.library.Application;
+import com.spring.library.domain.*;
+import com.spring.library.dto.BookDto;
+import com.spring.library.dto.ReviewDto;
+import com.spring.library.repos.BookRepo;
+import com.spring.library.repos.CatalogEntryRepo;
+import com.spring.library.repos.ReviewRepo;
+import com.spring.library.repos.UserRepo;
+import com.spring.library.repos.WriterRepo;
+import com.spring.library.service.CatalogService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/* repository queries against the whole application context on an in-memory H2 database */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+    private static final int WRITERS = 100;
+    private static final int BOOKS_PER_WRITER = 20;
+    private static final int USERS = 500;
+    private static final int REVIEWS_PER_BOOK = 10;
+
+    private ConfigurableApplicationContext context;
+    private BookRepo bookRepo;
+    private ReviewRepo reviewRepo;
+    private UserRepo userRepo;
+    private CatalogEntryRepo catalogEntryRepo;
+
+    private List<Book> books;
+    private List<User> users;
+    private Pageable chunk;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .profiles("benchmark")
+                .run();
+        bookRepo = context.getBean(BookRepo.class);
+        reviewRepo = context.getBean(ReviewRepo.class);
+        userRepo = context.getBean(UserRepo.class);
+        catalogEntryRepo = context.getBean(CatalogEntryRepo.class);
+        WriterRepo writerRepo = context.getBean(WriterRepo.class);
+
+        users = new ArrayList<>();
+        for (long i = 1; i <= USERS; i++) {
+            User user = SyntheticData.user(null, "reader" + i, Role.USER);
+            users.add(userRepo.save(user));
+        }
+
+        books = new ArrayList<>();
+        for (long w = 1; w <= WRITERS; w++) {
+            Writer writer = SyntheticData.writer(null);
+            writer.setLastName("Last" + w);
+            writer = writerRepo.save(writer);
+            for (long b = 1; b <= BOOKS_PER_WRITER; b++) {
+                Book book = SyntheticData.book(null, books.size(), writer);
+                book.setBookName("Book " + w + "-" + b);
+                books.add(bookRepo.save(book));
+            }
+        }
+
+        List<Review> reviews = new ArrayList<>();
+        for (Book book : books) {
+            for (int r = 0; r < REVIEWS_PER_BOOK; r++) {
+                User author = users.get(ThreadLocalRandom.current().nextInt(users.size()));
+                reviews.add(SyntheticData.review(null, reviews.size(), book, author));
+            }
+        }
+        reviewRepo.saveAll(reviews);
+        context.getBean(CatalogService.class).rebuild();
+
+        chunk = PageRequest.of(0, 50, Sort.by("id"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+
+    @Benchmark
+    public User findByUsername() {
+        return userRepo.findByUsername(randomUser().getUsername());
+    }
+
+    @Benchmark
+    public Book findByBookNameAndWriter() {
+        Book book = randomBook();
+        return bookRepo.findByBookNameAndWriter(book.getBookName(), book.getWriter());
+    }
+
+    @Benchmark
+    public Review findByAuthorAndBook() {
+        return reviewRepo.findByAuthor_IdAndBook_Id(randomUser().getId(), randomBook().getId());
+    }
+
+    @Benchmark
+    public List<CatalogEntry> bookListChunk() {
+        return catalogEntryRepo.findByIdGreaterThan(randomBook().getId(), chunk);
+    }
+
+    @Benchmark
+    public List<Review> bookReviewsChunk() {
+        return reviewRepo.findByBookAndIdGreaterThan(randomBook(), 0L, chunk);
+    }
+
+    @Benchmark
+    public List<BookDto> apiBookPage() {
+        return bookRepo.findBookDtos(randomBook().getId(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public List<ReviewDto> apiBookReviewPage() {
+        return reviewRepo.findBookReviewDtos(randomBook().getId(), 0L, PageRequest.of(0, 20));
+    }
+
+
+    private Book randomBook() {
+        return books.get(ThreadLocalRandom.current().nextInt(books.size()));
+    }
+
+    private User randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.spring.library.benchmarks;
+
+import com.spring.library.domain.*;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
+
+final class SyntheticData {
+    private static final Genre[] GENRES = Genre.values();
+    private static final Assessment[] ASSESSMENTS = Assessment.values();
+
+    private SyntheticData() {
+    }
+
+
+    static Writer writer(Long id) {
+        Writer writer = new Writer();
+        writer.setId(id);
+        writer.setFirstName("First" + id);
+        writer.setLastName("Last" + id);
+        return writer;
+    }
+
+    /* id is null for entities that are saved, the contents depend on index only */
+    static Book book(Long id, long index, Writer writer) {
+        Book book = new Book();
+        book.setId(id);
+        book.setBookName("Book " + index);
+        book.setAnnotation(annotation(index));
+        book.setPublicationDate(new Date(0));
+        book.setFilename("poster-" + index + ".png");
+        book.setWriter(writer);
+        book.setGenres(EnumSet.of(GENRES[(int) (index % GENRES.length)], GENRES[(int) ((index + 1) % GENRES.length)]));
+        return book;
+    }
+
+    static CatalogEntry catalogEntry(Book book) {
+        Writer writer = book.getWriter();
+        return new CatalogEntry(book.getId(), book.getBookName(), writer.getId(), writer.toString(), book.getGenres());
+    }
+
+    static User user(Long id, String username, Role... roles) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setPassword("$2a$08$eLovvQTHtjF8KchFojNvReAGD/Hc4ptxlZ4Q14bGyM5kFr7jLreNa");
+        user.setActive(true);
+        user.setRoles(new HashSet<>(Arrays.asList(roles)));
+        return user;
+    }
+
+    static Review review(Long id, long index, Book book, User author) {
+        Review review = new Review();
+        review.setId(id);
+        review.setText("Review " + index + " " + annotation(index));
+        review.setAssessment(ASSESSMENTS[(int) (index % ASSESSMENTS.length)]);
+        review.setBook(book);
+        review.setAuthor(author);
+        return review;
+    }
+
+    private static String annotation(long index) {
+        StringBuilder annotation = new StringBuilder();
+        while (annotation.length() < 400) {
+            annotation.append("Sentence ").append(index).append(" of a synthetic annotation. ");
+        }
+        return annotation.toString();
+    }
+}
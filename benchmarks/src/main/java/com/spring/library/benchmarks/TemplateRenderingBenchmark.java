@@ -0,0 +1,97 @@
+package com.spring.library.benchmarks;
+
+import com.spring.library.Application;
+import com.spring.library.domain.*;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int rows;
+
+    private Template bookListTemplate;
+    private Template reviewListTemplate;
+
+    private Map<String, Object> bookListModel;
+    private Map<String, Object> reviewListModel;
+
+    @Setup
+    public void setUp() throws IOException, TemplateException {
+        Configuration configuration = configuration();
+        bookListTemplate = configuration.getTemplate("book/bookList.ftl");
+        reviewListTemplate = configuration.getTemplate("review/reviewList.ftl");
+
+        User currentUser = SyntheticData.user(1L, "admin", Role.USER, Role.ADMIN);
+        List<CatalogEntry> books = new ArrayList<>();
+        List<Review> reviews = new ArrayList<>();
+        Writer writer = SyntheticData.writer(1L);
+        Book reviewedBook = SyntheticData.book(1L, 1, writer);
+        for (long i = 1; i <= rows; i++) {
+            books.add(SyntheticData.catalogEntry(SyntheticData.book(i, i, writer)));
+            User author = SyntheticData.user(i + 1, "reader" + i, Role.USER);
+            reviews.add(SyntheticData.review(i, i, reviewedBook, author));
+        }
+
+        bookListModel = securityModel(currentUser);
+        bookListModel.put("books", books);
+
+        reviewListModel = securityModel(currentUser);
+        reviewListModel.put("book", reviewedBook);
+        reviewListModel.put("reviews", reviews);
+        reviewListModel.put("reviewCardAction", "/books/1/reviews");
+    }
+
+    @Benchmark
+    public String bookList() throws IOException, TemplateException {
+        return render(bookListTemplate, bookListModel);
+    }
+
+    @Benchmark
+    public String reviewList() throws IOException, TemplateException {
+        return render(reviewListTemplate, reviewListModel);
+    }
+
+
+    /* the same settings and shared variables as ViewConfig, without the servlet stack */
+    static Configuration configuration() throws TemplateException {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_29);
+        configuration.setClassForTemplateLoading(Application.class, "/templates");
+        configuration.setDefaultEncoding("UTF-8");
+        configuration.setSharedVariable("streaming", false);
+        configuration.setSharedVariable("chunkRows", 50);
+        configuration.setSharedVariable("genres", Arrays.asList(Genre.values()));
+        configuration.setSharedVariable("assessments", Arrays.asList(Assessment.values()));
+        configuration.setSharedVariable("roles", Arrays.asList(Role.values()));
+        return configuration;
+    }
+
+    static String render(Template template, Map<String, Object> model) throws IOException, TemplateException {
+        StringWriter writer = new StringWriter(16 * 1024);
+        template.process(model, writer);
+        return writer.toString();
+    }
+
+    /* what SecurityModelInterceptor and the csrf filter add to every view */
+    static Map<String, Object> securityModel(User currentUser) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("known", true);
+        model.put("currentUser", currentUser);
+        model.put("isAdmin", currentUser.isAdmin());
+        model.put("_csrf", Collections.singletonMap("token", "3f1c6b1e-5f0e-4a53-9d3c-0b8a7c0f9a11"));
+        return model;
+    }
+}
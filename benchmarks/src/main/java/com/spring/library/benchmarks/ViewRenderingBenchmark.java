@@ -0,0 +1,135 @@
+package com.spring.library.benchmarks;
+
+import com.spring.library.domain.*;
+import com.spring.library.dto.BookPreview;
+import com.spring.library.dto.CursorPage;
+import com.spring.library.dto.WriterSummary;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Render time of every controller view with the model its controller builds, one page of list
+ * items (view.page-size) where the view has a list. TemplateRenderingBenchmark covers how the
+ * unpaged lists scale with their length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewRenderingBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({
+            "greeting",
+            "book/bookPage",
+            "book/bookAddPage",
+            "book/bookEditPage",
+            "review/reviewList",
+            "review/reviewEditPage",
+            "writer/writerList",
+            "writer/writerPage",
+            "writer/writerBooks",
+            "writer/writerEditPage",
+            "user/userList",
+            "user/userProfile",
+            "user/userSettings"
+    })
+    private String view;
+
+    private Template template;
+    private Map<String, Object> model;
+
+    @Setup
+    public void setUp() throws IOException, TemplateException {
+        template = TemplateRenderingBenchmark.configuration().getTemplate(view + ".ftl");
+
+        User admin = SyntheticData.user(1L, "admin", Role.USER, Role.ADMIN);
+        User reader = SyntheticData.user(2L, "reader", Role.USER);
+        Writer writer = SyntheticData.writer(1L);
+        Book book = SyntheticData.book(1L, 1, writer);
+        Review review = SyntheticData.review(1L, 1, book, reader);
+
+        List<Writer> writers = new ArrayList<>();
+        List<WriterSummary> writerSummaries = new ArrayList<>();
+        List<BookPreview> bookPreviews = new ArrayList<>();
+        List<Review> reviews = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (long i = 1; i <= PAGE_SIZE; i++) {
+            Writer pageWriter = SyntheticData.writer(i);
+            writers.add(pageWriter);
+
+            WriterSummary summary = new WriterSummary(i, pageWriter.getFirstName(), pageWriter.getLastName());
+            summary.setCounts(i, 3 * i, 2 * i);
+            writerSummaries.add(summary);
+
+            Book pageBook = SyntheticData.book(i, i, writer);
+            String annotation = pageBook.getAnnotation();
+            bookPreviews.add(new BookPreview(i, pageBook.getBookName(),
+                    annotation.substring(0, BookPreview.ANNOTATION_LENGTH + 1)));
+
+            reviews.add(SyntheticData.review(i, i, pageBook, reader));
+            users.add(SyntheticData.user(i, "user" + i, Role.USER));
+        }
+
+        model = TemplateRenderingBenchmark.securityModel(admin);
+        switch (view) {
+            case "book/bookPage":
+                model.put("book", book);
+                break;
+            case "book/bookAddPage":
+                model.put("writers", writers);
+                break;
+            case "book/bookEditPage":
+                model.put("writers", writers);
+                model.put("currentBook", book);
+                model.put("editedBook", book);
+                break;
+            case "review/reviewList":
+                model.put("userProfile", reader);
+                model.put("reviews", reviews);
+                model.put("reviewCardAction", "/users/2/reviews");
+                break;
+            case "review/reviewEditPage":
+                model.put("review", review);
+                model.put("reviewAction", "/books/1/reviews/1");
+                break;
+            case "writer/writerList":
+                model.put("page", new CursorPage<>(writerSummaries, PAGE_SIZE, WriterSummary::getId));
+                break;
+            case "writer/writerPage":
+                model.put("writer", writer);
+                break;
+            case "writer/writerBooks":
+                model.put("writer", writer);
+                model.put("page", new CursorPage<>(bookPreviews, PAGE_SIZE, BookPreview::getId));
+                break;
+            case "writer/writerEditPage":
+                model.put("currentWriter", writer);
+                model.put("editedWriter", writer);
+                break;
+            case "user/userList":
+                model.put("users", users);
+                break;
+            case "user/userProfile":
+                model.put("userProfile", reader);
+                break;
+            case "user/userSettings":
+                model.put("userProfile", admin);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Benchmark
+    public String render() throws IOException, TemplateException {
+        return TemplateRenderingBenchmark.render(template, model);
+    }
+}
@@ -0,0 +1,41 @@
+package com.spring.library.controller;
+
+import com.spring.library.domain.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* lives in the controller package because ControllerUtils is package-private */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerUtilsBenchmark {
+    private BindingResult bindingResult;
+
+    @Setup
+    public void setUp() {
+        bindingResult = new BeanPropertyBindingResult(new Book(), "book");
+        bindingResult.rejectValue("bookName", "NotBlank", "Book name cannot be empty");
+        bindingResult.rejectValue("annotation", "Length", "Annotation too long");
+        bindingResult.rejectValue("filename", "Length", "Poster file name too long");
+    }
+
+    @Benchmark
+    public Map<String, String> getErrors() {
+        return ControllerUtils.getErrors(bindingResult);
+    }
+
+    @Benchmark
+    public ExtendedModelMap mergeErrorsWithModel() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        ControllerUtils.mergeErrorsWithModel(bindingResult, model);
+        return model;
+    }
+}
@@ -0,0 +1,32 @@
+package com.spring.library.explain;
+
+import com.spring.library.metrics.QueryCountingStatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* replaces the application inspector on the explain profile and remembers every prepared statement */
+public class CapturingStatementInspector extends QueryCountingStatementInspector {
+    private static final List<String> statements = new ArrayList<>();
+
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (statements) {
+            statements.add(sql);
+        }
+        return super.inspect(sql);
+    }
+
+    public static List<String> capture(Runnable action) {
+        synchronized (statements) {
+            statements.clear();
+        }
+
+        action.run();
+
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.spring.library.explain;
+
+import com.spring.library.Application;
+import com.spring.library.domain.Book;
+import com.spring.library.domain.Review;
+import com.spring.library.domain.User;
+import com.spring.library.domain.Writer;
+import com.spring.library.repos.BookRepo;
+import com.spring.library.repos.CatalogEntryRepo;
+import com.spring.library.repos.ReviewRepo;
+import com.spring.library.repos.UserRepo;
+import com.spring.library.repos.WriterRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Runs every query method of the repositories against the seeded MySQL database
+ * (see DataGenerator), EXPLAINs each statement Hibernate prepared for it and reports
+ * every table read with a full table scan or an unbounded full index scan, and every step
+ * that sorts or groups through a filesort or a temporary table. An index scan is fine when
+ * the statement has a limit and MySQL expects to read no more rows than it: that is an
+ * ordered index read that stops early, as for the most reviewed books. Run by QueryPlanIT.
+ *
+ * Statement parameters are not captured, so they are explained with the literal '1'.
+ */
+public class QueryPlanCheck {
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanCheck.class);
+
+    private static final Class<?>[] REPOSITORIES = {
+            UserRepo.class, WriterRepo.class, BookRepo.class, ReviewRepo.class, CatalogEntryRepo.class
+    };
+    private static final Pageable CHUNK = PageRequest.of(0, 50, Sort.by("id"));
+    private static final Pattern LIMIT_PATTERN = Pattern.compile("limit (\\d+)\\s*$");
+
+    private final Map<String, Runnable> queries = new LinkedHashMap<>();
+
+
+    /* the problems found, empty when every query is served by an index */
+    public List<String> check(ConfigurableApplicationContext context) {
+        UserRepo userRepo = context.getBean(UserRepo.class);
+        WriterRepo writerRepo = context.getBean(WriterRepo.class);
+        BookRepo bookRepo = context.getBean(BookRepo.class);
+        ReviewRepo reviewRepo = context.getBean(ReviewRepo.class);
+        CatalogEntryRepo catalogEntryRepo = context.getBean(CatalogEntryRepo.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        Review review = reviewRepo.findAll(PageRequest.of(0, 1)).getContent().get(0);
+        User user = userRepo.findById(review.getAuthor().getId()).get();
+        Book book = bookRepo.findById(review.getBook().getId()).get();
+        Writer writer = writerRepo.findById(book.getWriter().getId()).get();
+
+        queries.put("UserRepo.findById", () -> userRepo.findById(user.getId()));
+        queries.put("UserRepo.findAllById", () -> userRepo.findAllById(Arrays.asList(user.getId(), user.getId() + 1)));
+        queries.put("UserRepo.findByUsername", () -> userRepo.findByUsername(user.getUsername()));
+        queries.put("UserRepo.findByIdGreaterThan", () -> userRepo.findByIdGreaterThan(user.getId(), CHUNK));
+
+        queries.put("WriterRepo.findById", () -> writerRepo.findById(writer.getId()));
+        queries.put("WriterRepo.findByFirstNameAndLastName",
+                () -> writerRepo.findByFirstNameAndLastName(writer.getFirstName(), writer.getLastName()));
+        queries.put("WriterRepo.findWriterSummaries", () -> writerRepo.findWriterSummaries(writer.getId(), CHUNK));
+        queries.put("WriterRepo.countBooksAndReviews",
+                () -> writerRepo.countBooksAndReviews(Arrays.asList(writer.getId(), writer.getId() + 1)));
+
+        queries.put("BookRepo.findById", () -> bookRepo.findById(book.getId()));
+        queries.put("BookRepo.findAllById", () -> bookRepo.findAllById(Arrays.asList(book.getId(), book.getId() + 1)));
+        queries.put("BookRepo.findByBookNameAndWriter", () -> bookRepo.findByBookNameAndWriter(book.getBookName(), writer));
+        queries.put("BookRepo.findWriterBookPreviews", () -> bookRepo.findWriterBookPreviews(writer.getId(), 0L, CHUNK));
+        queries.put("BookRepo.findBookDto", () -> bookRepo.findBookDto(book.getId()));
+        queries.put("BookRepo.findBookDtos", () -> bookRepo.findBookDtos(book.getId(), CHUNK));
+        queries.put("BookRepo.findWriterBookDtos", () -> bookRepo.findWriterBookDtos(writer.getId(), 0L, CHUNK));
+        queries.put("BookRepo.findGenresByBookIds",
+                () -> bookRepo.findGenresByBookIds(Arrays.asList(book.getId(), book.getId() + 1)));
+
+        queries.put("ReviewRepo.findById", () -> reviewRepo.findById(review.getId()));
+        queries.put("ReviewRepo.findAllById", () -> reviewRepo.findAllById(Arrays.asList(review.getId(), review.getId() + 1)));
+        queries.put("ReviewRepo.findByAuthor_IdAndBook_Id", () -> reviewRepo.findByAuthor_IdAndBook_Id(user.getId(), book.getId()));
+        queries.put("ReviewRepo.findBookIdsAndAssessmentsByAuthor_Id",
+                () -> reviewRepo.findBookIdsAndAssessmentsByAuthor_Id(user.getId()));
+        queries.put("ReviewRepo.findByBookAndIdGreaterThan", () -> reviewRepo.findByBookAndIdGreaterThan(book, 0L, CHUNK));
+        queries.put("ReviewRepo.findByAuthorAndIdGreaterThan", () -> reviewRepo.findByAuthorAndIdGreaterThan(user, 0L, CHUNK));
+        queries.put("ReviewRepo.findBookReviewDtos", () -> reviewRepo.findBookReviewDtos(book.getId(), 0L, CHUNK));
+
+        queries.put("CatalogEntryRepo.findByIdGreaterThan", () -> catalogEntryRepo.findByIdGreaterThan(book.getId(), CHUNK));
+        queries.put("CatalogEntryRepo.findByOrderByReviewCountDesc",
+                () -> catalogEntryRepo.findByOrderByReviewCountDesc(PageRequest.of(0, CHUNK.getPageSize())));
+
+        List<String> problems = new ArrayList<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                String name = repository.getSimpleName() + "." + method.getName();
+                if (!queries.containsKey(name)) {
+                    problems.add(name + ": not covered by QueryPlanCheck");
+                }
+            }
+        }
+
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            for (String sql : CapturingStatementInspector.capture(query.getValue())) {
+                String explained = withLiterals(sql);
+                List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + explained);
+                for (Map<String, Object> row : plan) {
+                    log.info(String.format("%-45s %-12s %-8s %-25s %-8s %s", query.getKey(),
+                            row.get("table"), row.get("type"), row.get("key"), row.get("rows"), row.get("Extra")));
+                    problems.addAll(planProblems(query.getKey(), explained, row));
+                }
+            }
+        }
+
+        problems.forEach(problem -> log.error("FAILED {}", problem));
+        return problems;
+    }
+
+    private static List<String> planProblems(String query, String sql, Map<String, Object> row) {
+        List<String> problems = new ArrayList<>();
+        Object table = row.get("table");
+        if ("ALL".equals(row.get("type"))) {
+            problems.add(query + ": full scan of " + table + " in " + sql);
+        }
+        if ("index".equals(row.get("type")) && !isBoundedByLimit(sql, row)) {
+            problems.add(query + ": full index scan of " + table + " in " + sql);
+        }
+
+        String extra = Objects.toString(row.get("Extra"), "");
+        if (extra.contains("Using filesort")) {
+            problems.add(query + ": filesort on " + table + " in " + sql);
+        }
+        if (extra.contains("Using temporary")) {
+            problems.add(query + ": temporary table for " + table + " in " + sql);
+        }
+        return problems;
+    }
+
+    private static boolean isBoundedByLimit(String sql, Map<String, Object> row) {
+        Matcher limit = LIMIT_PATTERN.matcher(sql.trim());
+        Object rows = row.get("rows");
+        return limit.find() && rows instanceof Number && ((Number) rows).longValue() <= Long.parseLong(limit.group(1));
+    }
+
+    private static String withLiterals(String sql) {
+        return sql.replaceAll("limit \\?", "limit " + CHUNK.getPageSize()).replace("?", "'1'");
+    }
+}
@@ -0,0 +1,107 @@
+package com.spring.library.loadtest;
+
+import com.spring.library.domain.*;
+import com.spring.library.repos.BookRepo;
+import com.spring.library.repos.ReviewRepo;
+import com.spring.library.repos.UserRepo;
+import com.spring.library.repos.WriterRepo;
+import com.spring.library.service.CatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/* fills the in-memory database of the embedded profile before the load test starts */
+@Component
+@Profile("embedded")
+public class EmbeddedDataSeeder implements ApplicationRunner {
+    static final String PASSWORD = "password";
+    static final String ADMIN_USERNAME = "loadadmin";
+
+    @Value("${embedded.seed.writers}")
+    private int writers;
+
+    @Value("${embedded.seed.books-per-writer}")
+    private int booksPerWriter;
+
+    @Value("${embedded.seed.users}")
+    private int users;
+
+    @Autowired
+    private WriterRepo writerRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private ReviewRepo reviewRepo;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Random random = new Random(42);
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+
+        List<User> savedUsers = new ArrayList<>();
+        savedUsers.add(userRepo.save(user(ADMIN_USERNAME, encodedPassword, Role.USER, Role.ADMIN)));
+        for (int i = 1; i <= users; i++) {
+            savedUsers.add(userRepo.save(user("user" + i, encodedPassword, Role.USER)));
+        }
+
+        Genre[] genres = Genre.values();
+        Assessment[] assessments = Assessment.values();
+        for (int w = 1; w <= writers; w++) {
+            Writer writer = new Writer();
+            writer.setFirstName("First" + w);
+            writer.setLastName("Last" + w);
+            writer = writerRepo.save(writer);
+
+            for (int b = 1; b <= booksPerWriter; b++) {
+                Book book = new Book();
+                book.setBookName("Book " + w + "-" + b);
+                book.setAnnotation("Annotation of book " + w + "-" + b);
+                book.setPublicationDate(new Date(0));
+                book.setFilename("placeholder.png");
+                book.setWriter(writer);
+                book.setGenres(EnumSet.of(genres[random.nextInt(genres.length)]));
+                book = bookRepo.save(book);
+
+                // a few reviews from users that are not driven by the load test
+                for (int r = 0; r < 3; r++) {
+                    Review review = new Review();
+                    review.setText("Seeded review " + r);
+                    review.setAssessment(assessments[random.nextInt(assessments.length)]);
+                    review.setBook(book);
+                    review.setAuthor(savedUsers.get(1 + random.nextInt(savedUsers.size() - 1)));
+                    reviewRepo.save(review);
+                }
+            }
+        }
+
+        // the rows were saved past the services, so the catalog is filled in one go
+        catalogService.rebuild();
+    }
+
+    private User user(String username, String encodedPassword, Role... roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(encodedPassword);
+        user.setActive(true);
+        user.setRoles(new HashSet<>(Arrays.asList(roles)));
+        return user;
+    }
+}
@@ -0,0 +1,250 @@
+package com.spring.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.spring.library.Application;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Boots the application on the embedded profile and drives a mix of anonymous, reader and admin traffic.
+ * Reports throughput, p50/p99 latency and error rate per endpoint, and exits with 1 when an endpoint
+ * regressed against the baseline by more than load.threshold. Without a baseline the run fails, one is
+ * recorded from a run with load.record-baseline=true and committed.
+ */
+public class LoadTest {
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+    private static final Pattern OWN_REVIEW_PATTERN = Pattern.compile("href=\"(/books/\\d+/reviews/\\d+)\" role=\"button\">Edit");
+
+    private final int virtualUsers = Integer.getInteger("load.users", 20);
+    private final int warmupSeconds = Integer.getInteger("load.warmup", 10);
+    private final int durationSeconds = Integer.getInteger("load.duration", 60);
+    private final double threshold = Double.parseDouble(System.getProperty("load.threshold", "0.2"));
+    private final File baselineFile = new File(System.getProperty("load.baseline", "load-test-baseline.json"));
+    private final File resultFile = new File(System.getProperty("load.result", "target/load-test-result.json"));
+    private final boolean isRecordingBaseline = Boolean.getBoolean("load.record-baseline");
+
+    private int books;
+    private int writers;
+    private byte[] poster;
+    private volatile Results results = new Results();
+    private final Recorder recorder = (endpoint, latencyNanos, isError) -> results.record(endpoint, latencyNanos, isError);
+
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("embedded")
+                .run(args);
+
+        int exitCode;
+        try {
+            exitCode = new LoadTest().run(context);
+        } finally {
+            context.close();
+        }
+
+        System.exit(exitCode);
+    }
+
+    private int run(ConfigurableApplicationContext context) throws Exception {
+        String port = context.getEnvironment().getProperty("local.server.port");
+        String baseUrl = "http://localhost:" + port;
+        writers = context.getEnvironment().getProperty("embedded.seed.writers", Integer.class);
+        books = writers * context.getEnvironment().getProperty("embedded.seed.books-per-writer", Integer.class);
+        int users = context.getEnvironment().getProperty("embedded.seed.users", Integer.class);
+        poster = createPoster();
+
+        ExecutorService executor = Executors.newFixedThreadPool(virtualUsers);
+        List<Future<?>> running = new ArrayList<>();
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long testEnd = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (int i = 0; i < virtualUsers; i++) {
+            int userNumber = 1 + i % users;
+            boolean isAdmin = i == 0;
+            running.add(executor.submit(() -> drive(baseUrl, userNumber, isAdmin, testEnd)));
+        }
+
+        // everything recorded during warm-up is dropped
+        TimeUnit.NANOSECONDS.sleep(warmupEnd - System.nanoTime());
+        results = new Results();
+        for (Future<?> virtualUser : running) {
+            virtualUser.get();
+        }
+        executor.shutdown();
+
+        Map<String, Map<String, Double>> result = results.summarize(durationSeconds);
+        print(result);
+        writeJson(resultFile, result);
+
+        if (isRecordingBaseline) {
+            writeJson(baselineFile, result);
+            log.info("Baseline {} recorded from this run", baselineFile);
+            return 0;
+        }
+        if (!baselineFile.exists()) {
+            log.error("No baseline at {}, record one with -Dload.record-baseline=true", baselineFile);
+            return 1;
+        }
+
+        return compareWithBaseline(result) ? 0 : 1;
+    }
+
+    private void drive(String baseUrl, int userNumber, boolean isAdmin, long testEnd) {
+        Random random = new Random(userNumber);
+        VirtualUser anonymous = new VirtualUser(baseUrl, recorder);
+        VirtualUser user = new VirtualUser(baseUrl, recorder);
+
+        try {
+            String username = isAdmin ? EmbeddedDataSeeder.ADMIN_USERNAME : "user" + userNumber;
+            user.login(username, EmbeddedDataSeeder.PASSWORD);
+
+            while (System.nanoTime() < testEnd) {
+                int scenario = random.nextInt(100);
+                if (scenario < 15) {
+                    anonymous.get("greeting", "/");
+                } else if (scenario < 20) {
+                    new VirtualUser(baseUrl, recorder).login(username, EmbeddedDataSeeder.PASSWORD);
+                } else if (scenario < 45) {
+                    if (random.nextBoolean()) {
+                        user.get("book list", "/books");
+                    } else {
+                        user.get("writer list", "/writers");
+                    }
+                } else if (scenario < 75) {
+                    user.get("book page", "/books/" + (1 + random.nextInt(books)));
+                } else if (scenario < 95 || !isAdmin) {
+                    reviewCycle(user, 1 + random.nextInt(books), random);
+                } else {
+                    uploadBook(user, random);
+                }
+            }
+        } catch (IOException e) {
+            recorder.record("connection", 0, true);
+        }
+    }
+
+    /* post a review, then edit and delete it through the links the page shows its author */
+    private void reviewCycle(VirtualUser user, int bookId, Random random) throws IOException {
+        String reviews = "/books/" + bookId + "/reviews";
+        Map<String, String> review = new LinkedHashMap<>();
+        review.put("text", "Load test review " + random.nextInt());
+        review.put("assessment", "POSITIVE");
+        user.postForm("review post", reviews, review);
+
+        Matcher ownReview = OWN_REVIEW_PATTERN.matcher(user.get("review list", reviews).body);
+        if (!ownReview.find()) {
+            return;
+        }
+        String reviewPath = ownReview.group(1);
+
+        Map<String, String> editedReview = new LinkedHashMap<>(review);
+        editedReview.put("_method", "PUT");
+        editedReview.put("assessment", "NEUTRAL");
+        user.postForm("review edit", reviewPath, editedReview);
+
+        Map<String, String> deletion = new LinkedHashMap<>();
+        deletion.put("_method", "DELETE");
+        user.postForm("review delete", reviewPath, deletion);
+    }
+
+    private void uploadBook(VirtualUser admin, Random random) throws IOException {
+        Map<String, String> book = new LinkedHashMap<>();
+        book.put("bookName", "Load test book " + UUID.randomUUID());
+        book.put("annotation", "Uploaded by the load test");
+        book.put("publicationDate", "2020-01-01");
+        book.put("selectedWriter", String.valueOf(1 + random.nextInt(writers)));
+        book.put("DRAMA", "on");
+        admin.postMultipart("admin book upload", "/books", book, "posterFile", "poster.png", poster);
+    }
+
+
+    private boolean compareWithBaseline(Map<String, Map<String, Double>> result) throws IOException {
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Double>> baseline = new ObjectMapper().readValue(baselineFile, Map.class);
+
+        boolean isPassed = true;
+        for (Map.Entry<String, Map<String, Double>> endpoint : baseline.entrySet()) {
+            Map<String, Double> current = result.get(endpoint.getKey());
+            if (current == null) {
+                continue;
+            }
+
+            double baselineP99 = endpoint.getValue().get("p99Millis");
+            double baselineErrors = endpoint.getValue().get("errorRate");
+            if (current.get("p99Millis") > baselineP99 * (1 + threshold)) {
+                log.error(String.format("REGRESSION %s: p99 %.1f ms, baseline %.1f ms",
+                        endpoint.getKey(), current.get("p99Millis"), baselineP99));
+                isPassed = false;
+            }
+            if (current.get("errorRate") > baselineErrors + threshold / 10) {
+                log.error(String.format("REGRESSION %s: error rate %.3f, baseline %.3f",
+                        endpoint.getKey(), current.get("errorRate"), baselineErrors));
+                isPassed = false;
+            }
+        }
+
+        return isPassed;
+    }
+
+    private void print(Map<String, Map<String, Double>> result) {
+        log.info(String.format("%-20s %10s %10s %10s %10s", "endpoint", "req/s", "p50 ms", "p99 ms", "errors"));
+        for (Map.Entry<String, Map<String, Double>> endpoint : result.entrySet()) {
+            Map<String, Double> stats = endpoint.getValue();
+            log.info(String.format("%-20s %10.1f %10.1f %10.1f %10.3f", endpoint.getKey(),
+                    stats.get("throughput"), stats.get("p50Millis"), stats.get("p99Millis"), stats.get("errorRate")));
+        }
+    }
+
+    private void writeJson(File file, Object value) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, value);
+    }
+
+    private static byte[] createPoster() throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(200, 300, BufferedImage.TYPE_INT_RGB), "png", png);
+        return png.toByteArray();
+    }
+
+
+    interface Recorder {
+        void record(String endpoint, long latencyNanos, boolean isError);
+    }
+
+    private static class Results {
+        private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+        void record(String endpoint, long latencyNanos, boolean isError) {
+            endpoints.computeIfAbsent(endpoint, name -> new EndpointStats()).record(latencyNanos, isError);
+        }
+
+        Map<String, Map<String, Double>> summarize(int durationSeconds) {
+            Map<String, Map<String, Double>> summary = new TreeMap<>();
+            for (Map.Entry<String, EndpointStats> endpoint : endpoints.entrySet()) {
+                EndpointStats stats = endpoint.getValue();
+                Map<String, Double> endpointSummary = new LinkedHashMap<>();
+                endpointSummary.put("throughput", (double) stats.getCount() / durationSeconds);
+                endpointSummary.put("p50Millis", stats.getPercentileMillis(50));
+                endpointSummary.put("p99Millis", stats.getPercentileMillis(99));
+                endpointSummary.put("errorRate", stats.getErrorRate());
+                summary.put(endpoint.getKey(), endpointSummary);
+            }
+            return summary;
+        }
+    }
+}
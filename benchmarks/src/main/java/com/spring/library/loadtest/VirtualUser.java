@@ -0,0 +1,167 @@
+package com.spring.library.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/* one browser: keeps its own session cookie and csrf token */
+class VirtualUser {
+    private static final Pattern CSRF_PATTERN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final LoadTest.Recorder recorder;
+    private String sessionCookie;
+    private String csrfToken;
+
+    VirtualUser(String baseUrl, LoadTest.Recorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+
+    Response get(String endpoint, String path) throws IOException {
+        return send(endpoint, "GET", path, null, null);
+    }
+
+    Response postForm(String endpoint, String path, Map<String, String> form) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, String> field : form.entrySet()) {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(URLEncoder.encode(field.getKey(), "UTF-8"))
+                    .append('=')
+                    .append(URLEncoder.encode(field.getValue(), "UTF-8"));
+        }
+
+        return send(endpoint, "POST", path, "application/x-www-form-urlencoded",
+                body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    Response postMultipart(String endpoint, String path, Map<String, String> form, String fileField,
+                           String filename, byte[] file) throws IOException {
+        String boundary = UUID.randomUUID().toString();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> field : form.entrySet()) {
+            write(body, "--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"" + field.getKey() + "\"\r\n\r\n"
+                    + field.getValue() + "\r\n");
+        }
+        write(body, "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + fileField + "\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: image/png\r\n\r\n");
+        body.write(file);
+        write(body, "\r\n--" + boundary + "--\r\n");
+
+        return send(endpoint, "POST", path, "multipart/form-data; boundary=" + boundary, body.toByteArray());
+    }
+
+    boolean login(String username, String password) throws IOException {
+        get("login page", "/login");
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("username", username);
+        form.put("password", password);
+        Response response = postForm("login", "/login", form);
+        boolean isLoggedIn = response.status == 302 && !response.location.contains("error");
+
+        // spring security issues a new csrf token on login, the greeting page carries it in the logout form
+        get("greeting", "/");
+        return isLoggedIn;
+    }
+
+
+    private Response send(String endpoint, String method, String path, String contentType, byte[] body)
+            throws IOException {
+        long startTime = System.nanoTime();
+        Response response = null;
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestMethod(method);
+            if (sessionCookie != null) {
+                connection.setRequestProperty("Cookie", sessionCookie);
+            }
+            if (csrfToken != null) {
+                connection.setRequestProperty("X-CSRF-TOKEN", csrfToken);
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", contentType);
+                try (OutputStream output = connection.getOutputStream()) {
+                    output.write(body);
+                }
+            }
+
+            int status = connection.getResponseCode();
+            rememberSession(connection.getHeaderFields().get("Set-Cookie"));
+            String text = read(status >= 400 ? connection.getErrorStream() : connection.getInputStream());
+            Matcher csrf = CSRF_PATTERN.matcher(text);
+            if (csrf.find()) {
+                csrfToken = csrf.group(1);
+            }
+
+            String location = connection.getHeaderField("Location");
+            response = new Response(status, location == null ? "" : location, text);
+            return response;
+        } finally {
+            boolean isError = response == null || response.status >= 400;
+            recorder.record(endpoint, System.nanoTime() - startTime, isError);
+        }
+    }
+
+    private void rememberSession(List<String> cookies) {
+        if (cookies == null) {
+            return;
+        }
+
+        for (String cookie : cookies) {
+            if (cookie.startsWith("JSESSIONID=")) {
+                sessionCookie = cookie.substring(0, cookie.indexOf(';') == -1 ? cookie.length() : cookie.indexOf(';'));
+            }
+        }
+    }
+
+    private static String read(InputStream input) throws IOException {
+        if (input == null) {
+            return "";
+        }
+
+        try (InputStream in = input) {
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                text.write(buffer, 0, read);
+            }
+            return new String(text.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void write(ByteArrayOutputStream body, String text) throws IOException {
+        body.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    static class Response {
+        final int status;
+        final String location;
+        final String body;
+
+        Response(int status, String location, String body) {
+            this.status = status;
+            this.location = location;
+            this.body = body;
+        }
+    }
+}
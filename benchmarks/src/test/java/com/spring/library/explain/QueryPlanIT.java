@@ -0,0 +1,27 @@
+package com.spring.library.explain;
+
+import com.spring.library.Application;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/* mvn -f benchmarks/pom.xml verify -Pquery-plans, against the MySQL database seeded with the generate profile */
+public class QueryPlanIT {
+
+    @Test
+    public void everyRepositoryQueryIsServedByAnIndex() {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("explain")
+                .run();
+        try {
+            List<String> problems = new QueryPlanCheck().check(context);
+            assertTrue("Query plan problems:\n" + String.join("\n", problems), problems.isEmpty());
+        } finally {
+            context.close();
+        }
+    }
+}
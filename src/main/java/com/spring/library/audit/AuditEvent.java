@@ -0,0 +1,89 @@
+package com.spring.library.audit;
+
+import java.time.Instant;
+
+/* one line of a segment: time, outbox event id, actor, action, target id, parent id, tab separated */
+public class AuditEvent {
+    private final Instant time;
+    private final Long eventId;
+    private final String actor;
+    private final String action;
+    private final Long targetId;
+    private final Long parentId;
+
+    public AuditEvent(Instant time, Long eventId, String actor, String action, Long targetId, Long parentId) {
+        this.time = time;
+        this.eventId = eventId;
+        this.actor = actor;
+        this.action = action;
+        this.targetId = targetId;
+        this.parentId = parentId;
+    }
+
+
+    public static AuditEvent parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Not an audit line: " + line);
+        }
+
+        return new AuditEvent(Instant.parse(fields[0]), toLong(fields[1]), unescape(fields[2]), fields[3],
+                toLong(fields[4]), toLong(fields[5]));
+    }
+
+    public String toLine() {
+        return time + "\t" + toText(eventId) + "\t" + escape(actor) + "\t" + action + "\t"
+                + toText(targetId) + "\t" + toText(parentId);
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+
+    private static String toText(Long value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static Long toLong(String text) {
+        return text.isEmpty() ? null : Long.valueOf(text);
+    }
+
+    // usernames are the only free text, a tab or a line break in one must not split the line
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(++i);
+                c = escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+}
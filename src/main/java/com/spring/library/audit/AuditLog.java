@@ -0,0 +1,61 @@
+package com.spring.library.audit;
+
+import com.spring.library.domain.DomainEventType;
+import com.spring.library.domain.OutboxEvent;
+import com.spring.library.domain.Role;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
+/*
+ * Records the changes admins make: books, writers, user roles and accounts, reviews they delete
+ * and restored backups. Only committed changes are recorded, right after the commit on the
+ * request thread, which does nothing more than put the event into the writer's ring buffer.
+ *
+ * USER_UPDATED is a user changing their own settings and is not recorded, even for an admin;
+ * reviews that go with a deleted user are one BOOK_REVIEWS_DELETED per book, not recorded
+ * either, the USER_DELETED before them is.
+ */
+@Component
+public class AuditLog {
+    private static final Set<DomainEventType> AUDITED_TYPES = EnumSet.of(
+            DomainEventType.BOOK_ADDED, DomainEventType.BOOK_UPDATED, DomainEventType.BOOK_DELETED,
+            DomainEventType.WRITER_ADDED, DomainEventType.WRITER_UPDATED, DomainEventType.WRITER_DELETED,
+            DomainEventType.REVIEW_DELETED,
+            DomainEventType.USER_ROLES_UPDATED, DomainEventType.USER_DELETED,
+            DomainEventType.BACKUP_RESTORED
+    );
+
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+
+    @TransactionalEventListener
+    public void onEvent(OutboxEvent event) {
+        if (!AUDITED_TYPES.contains(event.getType())) {
+            return;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> Role.ADMIN.getAuthority().equals(authority.getAuthority()));
+        if (!isAdmin) {
+            return;
+        }
+
+        auditLogWriter.append(new AuditEvent(
+                Instant.now(),
+                event.getId(),
+                authentication.getName(),
+                event.getType().name(),
+                event.getAggregateId(),
+                event.getParentId()
+        ));
+    }
+}
@@ -0,0 +1,118 @@
+package com.spring.library.audit;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Scans the audit segments, oldest first, skipping the ones that end before the requested time.
+ * Needs nothing but the JDK, so it runs from the plain classes jar (the application jar is
+ * repackaged by Spring Boot) next to the files of a stopped node:
+ *
+ * java -cp library-1.0-SNAPSHOT-classes.jar com.spring.library.audit.AuditLogReader <audit.path>
+ *      [--since=2020-01-31T00:00:00Z] [--actor=admin] [--action=BOOK_DELETED] [--limit=100]
+ */
+public class AuditLogReader {
+    private final File directory;
+    private Instant since = Instant.EPOCH;
+    private String actor;
+    private String action;
+    private int limit = Integer.MAX_VALUE;
+
+
+    public AuditLogReader(File directory) {
+        this.directory = directory;
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditLogReader <audit dir> [--since=<ISO instant>] [--actor=<username>] "
+                    + "[--action=<event type>] [--limit=<count>]");
+            System.exit(2);
+        }
+
+        AuditLogReader reader = new AuditLogReader(new File(args[0]));
+        for (String arg : Arrays.copyOfRange(args, 1, args.length)) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--since=")) {
+                reader.since = Instant.parse(value);
+            } else if (arg.startsWith("--actor=")) {
+                reader.actor = value;
+            } else if (arg.startsWith("--action=")) {
+                reader.action = value;
+            } else if (arg.startsWith("--limit=")) {
+                reader.limit = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        for (AuditEvent event : reader.scan()) {
+            System.out.println(event.toLine());
+        }
+    }
+
+    /* segment files in the order they were written */
+    static List<File> listSegments(File directory) {
+        File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(AuditLogWriter.SEGMENT_PREFIX) && name.endsWith(AuditLogWriter.SEGMENT_SUFFIX));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort(Comparator.comparing(File::getName));
+        return segments;
+    }
+
+
+    public List<AuditEvent> scan() throws IOException {
+        List<File> segments = listSegments(directory);
+        List<AuditEvent> events = new ArrayList<>();
+        for (int i = 0; i < segments.size() && events.size() < limit; i++) {
+            // a segment holds the events up to the start of the next one
+            if (i + 1 < segments.size() && getStartMillis(segments.get(i + 1)) < since.toEpochMilli()) {
+                continue;
+            }
+
+            try (BufferedReader lines = Files.newBufferedReader(segments.get(i).toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = lines.readLine()) != null && events.size() < limit) {
+                    // the last line of a segment may be cut short by a crash before the fsync
+                    AuditEvent event;
+                    try {
+                        event = AuditEvent.parse(line);
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    if (isMatching(event)) {
+                        events.add(event);
+                    }
+                }
+            }
+        }
+        return events;
+    }
+
+
+    private boolean isMatching(AuditEvent event) {
+        return !event.getTime().isBefore(since)
+                && (actor == null || actor.equals(event.getActor()))
+                && (action == null || action.equals(event.getAction()));
+    }
+
+    private static long getStartMillis(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(AuditLogWriter.SEGMENT_PREFIX.length(),
+                name.length() - AuditLogWriter.SEGMENT_SUFFIX.length()));
+    }
+}
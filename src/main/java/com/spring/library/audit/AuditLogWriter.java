@@ -0,0 +1,213 @@
+package com.spring.library.audit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * The only thread that touches the audit files.
+ *
+ * Events are taken from the ring buffer in batches and appended to the current segment,
+ * audit-<first event millis>.log; the segment is forced to disk at most every audit.fsync-millis,
+ * so one fsync covers many events. A segment over audit.segment-bytes is closed and a new one
+ * started, only the newest audit.max-segments are kept.
+ *
+ * A batch that could not be written is kept and written again, to a new segment, until it
+ * succeeds; nothing is appended after a line cut short by a failed write, so the reader skips
+ * just that line. A segment is never reopened: when the name of the first event's millisecond
+ * is taken, the next free millisecond is used. meanwhile the ring buffer fills up and new events are dropped and counted. Only on
+ * shutdown is a batch that still fails given up, and counted as dropped too.
+ */
+@Component
+public class AuditLogWriter {
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    @Value("${audit.path}")
+    private String auditPath;
+
+    @Value("${audit.buffer-size}")
+    private int bufferSize;
+
+    @Value("${audit.batch-size}")
+    private int batchSize;
+
+    @Value("${audit.fsync-millis}")
+    private long fsyncMillis;
+
+    @Value("${audit.segment-bytes}")
+    private long segmentBytes;
+
+    @Value("${audit.max-segments}")
+    private int maxSegments;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AuditRingBuffer ringBuffer;
+    private Thread writerThread;
+    private volatile boolean isRunning;
+
+    // writer thread only
+    private FileChannel segment;
+    private long lastForceTime;
+    private boolean isForceNeeded;
+    private final StringBuilder batch = new StringBuilder();
+    private int batchCount;
+    private long batchFirstMillis;
+
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(Paths.get(auditPath));
+        ringBuffer = new AuditRingBuffer(bufferSize);
+        isRunning = true;
+        writerThread = new Thread(this::writeEvents, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /* the events still in the buffer are written before the application stops */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        isRunning = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /* never blocks: when the writer falls behind by a whole buffer the event is dropped and counted */
+    public void append(AuditEvent event) {
+        if (!ringBuffer.offer(event)) {
+            meterRegistry.counter("library.audit.events", "result", "dropped").increment();
+        }
+    }
+
+
+    private void writeEvents() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, fsyncMillis / 4));
+        while (true) {
+            boolean isStopping = !isRunning;
+            try {
+                int written = writeBatch();
+                if (isForceNeeded && (written == 0 || System.currentTimeMillis() - lastForceTime >= fsyncMillis)) {
+                    force();
+                }
+                if (written == 0) {
+                    if (isStopping) {
+                        closeSegment();
+                        return;
+                    }
+                    LockSupport.parkNanos(idleNanos);
+                }
+            } catch (IOException e) {
+                log.error("{} audit events could not be written to {}", batchCount, auditPath, e);
+                closeSegmentQuietly();
+                if (isStopping) {
+                    meterRegistry.counter("library.audit.events", "result", "dropped").increment(batchCount);
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /* a batch left over from a failed write goes first, whole: the reader skips a line cut short */
+    private int writeBatch() throws IOException {
+        if (batchCount == 0) {
+            batch.setLength(0);
+            AuditEvent event;
+            while (batchCount < batchSize && (event = ringBuffer.poll()) != null) {
+                if (batchCount == 0) {
+                    batchFirstMillis = event.getTime().toEpochMilli();
+                }
+                batch.append(event.toLine()).append('\n');
+                batchCount++;
+            }
+            if (batchCount == 0) {
+                return 0;
+            }
+        }
+
+        if (segment == null || segment.size() >= segmentBytes) {
+            openSegment(batchFirstMillis);
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            segment.write(bytes);
+        }
+
+        int count = batchCount;
+        batchCount = 0;
+        isForceNeeded = true;
+        meterRegistry.counter("library.audit.events", "result", "written").increment(count);
+        return count;
+    }
+
+    private void force() throws IOException {
+        segment.force(false);
+        lastForceTime = System.currentTimeMillis();
+        isForceNeeded = false;
+    }
+
+    private void openSegment(long firstEventMillis) throws IOException {
+        closeSegment();
+        long startMillis = firstEventMillis;
+        Path path = segmentPath(startMillis);
+        while (Files.exists(path)) {
+            path = segmentPath(++startMillis);
+        }
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        removeOldSegments();
+    }
+
+    private Path segmentPath(long startMillis) {
+        return Paths.get(auditPath, String.format("%s%013d%s", SEGMENT_PREFIX, startMillis, SEGMENT_SUFFIX));
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment != null) {
+            if (isForceNeeded) {
+                force();
+            }
+            segment.close();
+            segment = null;
+        }
+    }
+
+    private void closeSegmentQuietly() {
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            segment = null;
+        }
+    }
+
+    private void removeOldSegments() {
+        List<File> segments = AuditLogReader.listSegments(new File(auditPath));
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            if (!segments.get(i).delete()) {
+                log.warn("Old audit segment {} could not be deleted", segments.get(i));
+            }
+        }
+    }
+}
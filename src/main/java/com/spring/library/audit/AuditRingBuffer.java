@@ -0,0 +1,69 @@
+package com.spring.library.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Bounded ring buffer for many producers and a single consumer, without locks.
+ *
+ * Each slot carries a sequence number: a producer claims index i with one compare-and-set
+ * when its slot holds i, fills it and publishes i + 1; the consumer takes the slot once it
+ * holds i + 1 and hands it back for the next lap as i + capacity. A full buffer refuses
+ * the event instead of making the producer wait.
+ */
+class AuditRingBuffer {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<AuditEvent> events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private long consumerIndex;
+
+
+    AuditRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.events = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            sequences.set(slot, slot);
+        }
+    }
+
+
+    /* any thread; false when the buffer is full */
+    boolean offer(AuditEvent event) {
+        while (true) {
+            long index = producerIndex.get();
+            int slot = (int) (index & mask);
+            long sequence = sequences.get(slot);
+            if (sequence < index) {
+                return false;
+            }
+            if (sequence == index && producerIndex.compareAndSet(index, index + 1)) {
+                events.lazySet(slot, event);
+                sequences.lazySet(slot, index + 1);
+                return true;
+            }
+        }
+    }
+
+    /* the consumer thread only; null when nothing was published yet */
+    AuditEvent poll() {
+        int slot = (int) (consumerIndex & mask);
+        if (sequences.get(slot) != consumerIndex + 1) {
+            return null;
+        }
+
+        AuditEvent event = events.get(slot);
+        events.lazySet(slot, null);
+        sequences.lazySet(slot, consumerIndex + capacity);
+        consumerIndex++;
+        return event;
+    }
+}
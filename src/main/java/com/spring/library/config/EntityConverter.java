@@ -0,0 +1,39 @@
+package com.spring.library.config;
+
+import com.spring.library.service.EntityResolver;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/* takes the place of Spring Data's domain class converter for path variables and form fields */
+public class EntityConverter<T> implements Converter<String, T> {
+    private final Class<T> type;
+    private final EntityResolver entityResolver;
+
+    public EntityConverter(Class<T> type, EntityResolver entityResolver) {
+        this.type = type;
+        this.entityResolver = entityResolver;
+    }
+
+
+    @Override
+    public T convert(String source) {
+        if (!StringUtils.hasText(source)) {
+            return null;
+        }
+
+        return entityResolver.resolve(type, Long.valueOf(source.trim()), isReadRequest());
+    }
+
+    static boolean isReadRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return false;
+        }
+
+        String method = ((ServletRequestAttributes) attributes).getRequest().getMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+}
@@ -0,0 +1,34 @@
+package com.spring.library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class EventConfig {
+
+    @Value("${outbox.subscriber-threads}")
+    private int subscriberThreads;
+
+    @Value("${outbox.queue-capacity}")
+    private int queueCapacity;
+
+
+    /* bounded: when subscribers fall behind, the dispatcher runs deliveries itself and polls less */
+    @Bean
+    public ThreadPoolTaskExecutor domainEventExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("domain-event-");
+        executor.setCorePoolSize(subscriberThreads);
+        executor.setMaxPoolSize(subscriberThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
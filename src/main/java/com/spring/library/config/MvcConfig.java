@@ -1,7 +1,15 @@
 package com.spring.library.config;
 
+import com.spring.library.metrics.QueryBudgetFilter;
+import com.spring.library.service.EntityResolver;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -17,6 +25,17 @@ public class MvcConfig implements WebMvcConfigurer {
     @Value("${upload.path}")
     private String uploadPath;
 
+    @Autowired
+    private EntityResolver entityResolver;
+
+    @Bean
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilterRegistration(QueryBudgetFilter queryBudgetFilter) {
+        // ahead of the security chain, so logins, rejected and rate-limited requests are counted too
+        FilterRegistrationBean<QueryBudgetFilter> registration = new FilterRegistrationBean<>(queryBudgetFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/img/**")
@@ -27,4 +46,21 @@ public class MvcConfig implements WebMvcConfigurer {
         registry.addViewController("/login").setViewName("log/login");
         registry.addViewController("/").setViewName("greeting");
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SecurityModelInterceptor());
+        registry.addInterceptor(new PathEntityInterceptor(entityResolver));
+    }
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        for (Class<?> type : EntityResolver.ENTITY_TYPES) {
+            addEntityConverter(registry, type);
+        }
+    }
+
+    private <T> void addEntityConverter(FormatterRegistry registry, Class<T> type) {
+        registry.addConverter(String.class, type, new EntityConverter<>(type, entityResolver));
+    }
 }
@@ -0,0 +1,68 @@
+package com.spring.library.config;
+
+import com.spring.library.service.EntityResolver;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Loads every entity path variable of the handler before its arguments are resolved,
+ * so /books/{book}/reviews/{review} costs one query instead of two.
+ */
+public class PathEntityInterceptor extends HandlerInterceptorAdapter {
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final EntityResolver entityResolver;
+
+    public PathEntityInterceptor(EntityResolver entityResolver) {
+        this.entityResolver = entityResolver;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Map<String, String> uriVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod) || uriVariables == null || uriVariables.isEmpty()) {
+            return true;
+        }
+
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        String[] parameterNames = parameterNameDiscoverer.getParameterNames(handlerMethod.getMethod());
+
+        Map<Class<?>, Set<Long>> idsByType = new HashMap<>();
+        for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+            PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+            Class<?> type = parameter.getParameterType();
+            if (pathVariable == null || !EntityResolver.ENTITY_TYPES.contains(type)) {
+                continue;
+            }
+
+            String name = !pathVariable.value().isEmpty() ? pathVariable.value() : pathVariable.name();
+            if (name.isEmpty() && parameterNames != null) {
+                name = parameterNames[parameter.getParameterIndex()];
+            }
+
+            String value = uriVariables.get(name);
+            if (value != null && value.matches("\\d{1,18}")) {
+                idsByType.computeIfAbsent(type, key -> new HashSet<>()).add(Long.valueOf(value));
+            }
+        }
+
+        if (!idsByType.isEmpty()) {
+            entityResolver.prefetch(idsByType, EntityConverter.isReadRequest());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package com.spring.library.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Sends read-only transactions to the replicas (round robin) and everything else to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy: the read-only flag of a transaction is only
+ * known once its first statement runs, not when the transaction manager asks for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long retryMillis;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    /* a replica that failed to give a connection is skipped until this time */
+    private final AtomicLongArray replicaDownUntil;
+    /* users who just wrote something read from the primary until their entry expires */
+    private final Cache<String, Boolean> stickyUsers;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long stickySeconds, long retrySeconds) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.stickyUsers = Caffeine.newBuilder()
+                .expireAfterWrite(stickySeconds, TimeUnit.SECONDS)
+                .build();
+        this.retryMillis = TimeUnit.SECONDS.toMillis(retrySeconds);
+        this.replicaDownUntil = new AtomicLongArray(replicas.size());
+    }
+
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!isReplicaRead()) {
+            return primary.getConnection();
+        }
+
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            if (replicaDownUntil.get(replica) > now) {
+                continue;
+            }
+
+            try {
+                return replicas.get(replica).getConnection();
+            } catch (SQLException e) {
+                log.warn("Replica {} is unavailable, reading from the primary for {} s", replica, retryMillis / 1000, e);
+                replicaDownUntil.set(replica, now + retryMillis);
+            }
+        }
+
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+
+    private boolean isReplicaRead() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+
+        String username = getUsername();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (username != null) {
+                stickyUsers.put(username, Boolean.TRUE);
+            }
+            return false;
+        }
+
+        return username == null || stickyUsers.getIfPresent(username) == null;
+    }
+
+    private String getUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,43 @@
+package com.spring.library.config;
+
+import com.spring.library.domain.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/*
+ * Resolves the variables of parts/security.ftl once per request, so the template
+ * does not re-evaluate them in every namespace that includes it.
+ */
+public class SecurityModelInterceptor extends HandlerInterceptorAdapter {
+
+    @Override
+    public void postHandle(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler,
+            ModelAndView modelAndView
+    ) {
+        boolean isRenderedView = modelAndView != null && modelAndView.getViewName() != null
+                && !modelAndView.getViewName().startsWith("redirect:");
+        if (!isRenderedView) {
+            return;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean known = authentication != null && authentication.getPrincipal() instanceof User;
+
+        modelAndView.addObject("known", known);
+        if (known) {
+            User currentUser = (User) authentication.getPrincipal();
+            modelAndView.addObject("currentUser", currentUser);
+            modelAndView.addObject("isAdmin", currentUser.isAdmin());
+        } else {
+            modelAndView.addObject("isAdmin", false);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.spring.library.config;
+
+import com.spring.library.domain.Assessment;
+import com.spring.library.domain.Genre;
+import com.spring.library.domain.Role;
+import com.spring.library.metrics.TimedFreeMarkerView;
+import freemarker.template.TemplateModelException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerViewResolver;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+@Configuration
+public class ViewConfig {
+    private static final Logger log = LoggerFactory.getLogger(ViewConfig.class);
+
+    private static final String TEMPLATES_LOCATION = "classpath:/templates/";
+
+    @Value("${view.streaming}")
+    private boolean streaming;
+
+    @Value("${view.chunk-rows}")
+    private int chunkRows;
+
+    @Value("${spring.mvc.locale}")
+    private Locale locale;
+
+    @Value("${spring.freemarker.charset:UTF-8}")
+    private String charset;
+
+    @Autowired
+    private freemarker.template.Configuration freeMarkerConfiguration;
+
+    @Autowired
+    private ResourcePatternResolver resourcePatternResolver;
+
+    @Autowired
+    private FreeMarkerViewResolver freeMarkerViewResolver;
+
+
+    @PostConstruct
+    public void timeViewRendering() {
+        freeMarkerViewResolver.setViewClass(TimedFreeMarkerView.class);
+    }
+
+    @PostConstruct
+    public void addSharedVariables() throws TemplateModelException {
+        // streaming pages flush the head and navbar at once, then every chunkRows list rows
+        freeMarkerConfiguration.setSharedVariable("streaming", streaming);
+        freeMarkerConfiguration.setSharedVariable("chunkRows", chunkRows);
+
+        // wrapped once here instead of cloning values() into every model
+        freeMarkerConfiguration.setSharedVariable("genres", Collections.unmodifiableList(Arrays.asList(Genre.values())));
+        freeMarkerConfiguration.setSharedVariable("assessments", Collections.unmodifiableList(Arrays.asList(Assessment.values())));
+        freeMarkerConfiguration.setSharedVariable("roles", Collections.unmodifiableList(Arrays.asList(Role.values())));
+    }
+
+    @PostConstruct
+    public void preloadTemplates() throws IOException {
+        // spring.mvc.locale is fixed, so the templates compiled here are the ones requests will hit in the cache
+        long startTime = System.nanoTime();
+        Resource[] templates = resourcePatternResolver.getResources(TEMPLATES_LOCATION + "**/*.ftl");
+        for (Resource template : templates) {
+            String templateName = getTemplateName(template);
+            if (templateName == null) {
+                continue;
+            }
+
+            long templateStartTime = System.nanoTime();
+            freeMarkerConfiguration.getTemplate(templateName, locale, charset);
+            log.debug("Template {} compiled in {} us", templateName, (System.nanoTime() - templateStartTime) / 1000);
+        }
+
+        log.info("{} templates compiled in {} ms", templates.length, (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private String getTemplateName(Resource template) throws IOException {
+        String url = StringUtils.cleanPath(template.getURL().toString());
+        int templatesRootIndex = url.lastIndexOf("/templates/");
+        return templatesRootIndex == -1 ? null : url.substring(templatesRootIndex + "/templates/".length());
+    }
+}
@@ -0,0 +1,49 @@
+package com.spring.library.config;
+
+import com.spring.library.service.WarmupService;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+
+/* signs in the requests WarmupService sends to its own node, see there */
+public class WarmupAuthenticationFilter extends OncePerRequestFilter {
+    private final WarmupService warmupService;
+
+    public WarmupAuthenticationFilter(WarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String token = request.getHeader(WarmupService.TOKEN_HEADER);
+        if (token != null && isLoopback(request.getRemoteAddr())) {
+            Authentication authentication = warmupService.authenticate(token);
+            if (authentication != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isLoopback(String address) {
+        try {
+            // an address literal, nothing is resolved
+            return InetAddress.getByName(address).isLoopbackAddress();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
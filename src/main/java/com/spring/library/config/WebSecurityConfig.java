@@ -1,14 +1,22 @@
 package com.spring.library.config;
 
+import com.spring.library.ratelimit.BasicAuthRateLimitFilter;
+import com.spring.library.ratelimit.RateLimitFilter;
+import com.spring.library.ratelimit.RateLimiter;
 import com.spring.library.service.UserService;
+import com.spring.library.service.WarmupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 
 @Configuration
@@ -22,6 +30,12 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private WarmupService warmupService;
+
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
@@ -29,6 +43,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .authorizeRequests()
                     .antMatchers("/login", "/registration").not().fullyAuthenticated()
                     .antMatchers("/").permitAll()
+                    // the endpoints are only served on the management port, see management.server.address
+                    .antMatchers("/actuator/health", "/actuator/readiness", "/actuator/prometheus").permitAll()
                     .anyRequest().authenticated()
                 .and()
                     .formLogin()
@@ -38,7 +54,10 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .and()
                     .logout()
                     .logoutSuccessUrl("/login")
-                    .permitAll();
+                    .permitAll()
+                .and()
+                    .addFilterBefore(new WarmupAuthenticationFilter(warmupService), UsernamePasswordAuthenticationFilter.class)
+                    .addFilterBefore(new RateLimitFilter(rateLimiter), UsernamePasswordAuthenticationFilter.class);
     }
 
     @Override
@@ -46,4 +65,52 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         auth.userDetailsService(userService)
                 .passwordEncoder(passwordEncoder);
     }
+
+
+    /*
+     * HTTP Basic only for the json api, checked before the browser chain. Basic credentials are
+     * hashed on every request, so those requests pass the rate-limit.basic-auth rule first, per
+     * address and per username; the rate-limit.rules then count per authenticated user.
+     * An existing browser session is still accepted, but the api never creates one.
+     */
+    @Configuration
+    @Order(1)
+    public static class ApiSecurityConfig extends WebSecurityConfigurerAdapter {
+
+        @Autowired
+        private UserService userService;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        @Autowired
+        private RateLimiter rateLimiter;
+
+        @Autowired
+        private WarmupService warmupService;
+
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http
+                    .antMatcher("/api/**")
+                    .authorizeRequests()
+                        .anyRequest().authenticated()
+                    .and()
+                        .httpBasic()
+                    .and()
+                        .sessionManagement()
+                        .sessionCreationPolicy(SessionCreationPolicy.NEVER)
+                    .and()
+                        .addFilterBefore(new WarmupAuthenticationFilter(warmupService), BasicAuthenticationFilter.class)
+                        .addFilterBefore(new BasicAuthRateLimitFilter(rateLimiter), BasicAuthenticationFilter.class)
+                        .addFilterAfter(new RateLimitFilter(rateLimiter), BasicAuthenticationFilter.class);
+        }
+
+        @Override
+        protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+            auth.userDetailsService(userService)
+                    .passwordEncoder(passwordEncoder);
+        }
+    }
 }
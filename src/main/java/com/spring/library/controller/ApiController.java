@@ -0,0 +1,90 @@
+package com.spring.library.controller;
+
+import com.spring.library.dto.BookDto;
+import com.spring.library.dto.FieldsFilter;
+import com.spring.library.service.BookService;
+import com.spring.library.service.ReviewService;
+import com.spring.library.service.WriterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+
+@Controller
+@ResponseBody
+@RequestMapping("/api/v1")
+public class ApiController {
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private WriterService writerService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+
+    @GetMapping("/books")
+    public MappingJacksonValue getBooks(
+            @RequestParam(name = "after", defaultValue = "0") Long after,
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        return FieldsFilter.apply(bookService.getBookDtoPage(after, checkLimit(limit)), fields);
+    }
+
+    @GetMapping("/books/{book:[\\d]+}")
+    public MappingJacksonValue getBook(
+            @PathVariable("book") Long bookId,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        BookDto book = bookService.getBookDto(bookId);
+        if (book == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "BOOK NOT FOUND");
+        }
+
+        return FieldsFilter.apply(book, fields);
+    }
+
+    @GetMapping("/writers/{writer:[\\d]+}/books")
+    public MappingJacksonValue getWriterBooks(
+            @PathVariable("writer") Long writerId,
+            @RequestParam(name = "after", defaultValue = "0") Long after,
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        if (!writerService.isWriterExists(writerId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "WRITER NOT FOUND");
+        }
+
+        return FieldsFilter.apply(bookService.getWriterBookDtoPage(writerId, after, checkLimit(limit)), fields);
+    }
+
+    @GetMapping("/books/{book:[\\d]+}/reviews")
+    public MappingJacksonValue getBookReviews(
+            @PathVariable("book") Long bookId,
+            @RequestParam(name = "after", defaultValue = "0") Long after,
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        if (!bookService.isBookExists(bookId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "BOOK NOT FOUND");
+        }
+
+        return FieldsFilter.apply(reviewService.getBookReviewDtoPage(bookId, after, checkLimit(limit)), fields);
+    }
+
+
+    private int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "LIMIT MUST BE BETWEEN 1 AND " + MAX_LIMIT);
+        }
+
+        return limit;
+    }
+}
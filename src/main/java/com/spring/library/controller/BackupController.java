@@ -0,0 +1,44 @@
+package com.spring.library.controller;
+
+import com.spring.library.service.BackupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Properties;
+
+
+@Controller
+@ResponseBody
+@PreAuthorize("hasAuthority('ADMIN')")
+public class BackupController {
+
+    @Autowired
+    private BackupService backupService;
+
+
+    /* since is the created-at of an earlier archive: only the posters changed after it are included */
+    @GetMapping("/backups")
+    public void downloadBackup(
+            @RequestParam(name = "since", required = false) Long since,
+            HttpServletResponse response
+    ) throws IOException {
+        String kind = since == null ? "full" : "incremental";
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"library-" + kind + "-" + System.currentTimeMillis() + ".zip\"");
+
+        backupService.writeBackup(response.getOutputStream(), since);
+        response.flushBuffer();
+    }
+
+    /* the archive is the request body, copied to a temporary file before anything is restored */
+    @PostMapping(value = "/backups/restore", consumes = "application/zip")
+    public Properties restoreBackup(HttpServletRequest request) throws IOException {
+        return backupService.restore(request.getInputStream());
+    }
+}
@@ -4,6 +4,7 @@ import com.spring.library.domain.Book;
 import com.spring.library.domain.Genre;
 import com.spring.library.domain.Writer;
 import com.spring.library.service.BookService;
+import com.spring.library.service.PosterUploadService;
 import com.spring.library.service.WriterService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.validation.Valid;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Map;
@@ -30,6 +32,9 @@ public class BookController {
     @Autowired
     private WriterService writerService;
 
+    @Autowired
+    private PosterUploadService posterUploadService;
+
 
     @GetMapping("books")
     public String getBookList(Model model) {
@@ -48,7 +53,6 @@ public class BookController {
     @GetMapping("books/add")
     @PreAuthorize("hasAuthority('ADMIN')")
     public String getBookAddPage(Model model) {
-        model.addAttribute("genres", Genre.values());
         model.addAttribute("writers", writerService.getWriterList());
         return "book/bookAddPage";
     }
@@ -61,7 +65,8 @@ public class BookController {
             Model model,
             @RequestParam Map<String, String> form,
             @RequestParam(name = "selectedWriter", required = false) Writer writer,
-            @RequestParam(name = "posterFile") MultipartFile posterFile
+            @RequestParam(name = "posterFile", required = false) MultipartFile posterFile,
+            @RequestParam(name = "posterToken", required = false) String posterToken
     ) {
         Set<Genre> selectedGenres = bookService.getSelectedGenresFromForm(form);
 
@@ -71,12 +76,11 @@ public class BookController {
 
         boolean isCorrectBookForm = isCorrectBookForm(selectedGenres, writer,
                 book.getPublicationDate(), bindingResult, model);
-        boolean isCorrectPoster = isCorrectPoster(posterFile, model);
+        boolean isCorrectPoster = isCorrectPoster(posterFile, posterToken, model);
         if (isCorrectBookForm && isCorrectPoster) {
             try {
-                String posterFilename = bookService.getPosterFilename(posterFile);
+                String posterFilename = loadPoster(posterFile, posterToken);
                 book.setFilename(posterFilename);
-                bookService.loadPosterFile(posterFile, posterFilename);
 
                 if (bookService.addNewBook(book)) {
                     return "redirect:/books";
@@ -89,8 +93,8 @@ public class BookController {
             }
         }
 
-        model.addAttribute("genres", Genre.values());
         model.addAttribute("writers", writerService.getWriterList());
+        model.addAttribute("posterToken", posterToken);
         return "book/bookAddPage";
     }
 
@@ -124,8 +128,16 @@ public class BookController {
                 && !isBindingResultHasErrors;
     }
 
-    private boolean isCorrectPoster(MultipartFile posterFile, Model model) {
-        boolean isCorrectPoster = !StringUtils.isEmpty(posterFile.getOriginalFilename()) && bookService.isImage(posterFile);
+    private boolean isCorrectPoster(MultipartFile posterFile, String posterToken, Model model) {
+        boolean isCorrectPoster;
+        if (!StringUtils.isEmpty(posterToken)) {
+            /* poster was already checked when its chunked upload was completed */
+            isCorrectPoster = posterUploadService.isCompletedUpload(posterToken);
+        } else {
+            isCorrectPoster = posterFile != null && !StringUtils.isEmpty(posterFile.getOriginalFilename())
+                    && bookService.isImage(posterFile);
+        }
+
         if (!isCorrectPoster) {
             model.addAttribute("posterFileError", "There are must be correct poster file");
         }
@@ -133,12 +145,25 @@ public class BookController {
         return isCorrectPoster;
     }
 
+    private String loadPoster(MultipartFile posterFile, String posterToken) throws IOException {
+        if (!StringUtils.isEmpty(posterToken)) {
+            String posterFilename = posterUploadService.takePosterFilename(posterToken);
+            if (posterFilename == null) {
+                throw new FileNotFoundException("Poster upload " + posterToken + " has expired");
+            }
+            return posterFilename;
+        }
+
+        String posterFilename = bookService.getPosterFilename(posterFile);
+        bookService.loadPosterFile(posterFile, posterFilename);
+        return posterFilename;
+    }
+
     @GetMapping("books/{book:[\\d]+}/edit")
     @PreAuthorize("hasAuthority('ADMIN')")
     public String getBookEditPage(@PathVariable Book book, Model model) {
         ControllerUtils.isBookExists(book);
 
-        model.addAttribute("genres", Genre.values());
         model.addAttribute("writers", writerService.getWriterList());
         model.addAttribute("currentBook", book);
         model.addAttribute("editedBook", book);
@@ -154,7 +179,8 @@ public class BookController {
             Model model,
             @RequestParam Map<String, String> form,
             @RequestParam(name = "selectedWriter", required = false) Writer writer,
-            @RequestParam(name = "posterFile") MultipartFile posterFile
+            @RequestParam(name = "posterFile", required = false) MultipartFile posterFile,
+            @RequestParam(name = "posterToken", required = false) String posterToken
     ) {
         ControllerUtils.isBookExists(currentBook);
 
@@ -167,12 +193,10 @@ public class BookController {
                 editedBook.getPublicationDate(), bindingResult, model);
         if (isCorrectBookForm) {
             /* you don't need to change the poster, but if you did, it must be correct */
-            boolean isCorrectPoster = isCorrectPoster(posterFile, model);
+            boolean isCorrectPoster = isCorrectPoster(posterFile, posterToken, model);
             if (isCorrectPoster) {
-                String posterFilename = bookService.getPosterFilename(posterFile);
-                editedBook.setFilename(posterFilename);
                 try {
-                    bookService.loadPosterFile(posterFile, posterFilename);
+                    editedBook.setFilename(loadPoster(posterFile, posterToken));
                 } catch (IOException e) {
                     e.printStackTrace();
                     model.addAttribute("posterFileError", "Incorrect file");
@@ -186,10 +210,10 @@ public class BookController {
             return "redirect:/books/" + currentBook.getId();
         }
 
-        model.addAttribute("genres", Genre.values());
         model.addAttribute("writers", writerService.getWriterList());
         model.addAttribute("currentBook", currentBook);
         model.addAttribute("editedBook", editedBook);
+        model.addAttribute("posterToken", posterToken);
         return "book/bookEditPage";
     }
 
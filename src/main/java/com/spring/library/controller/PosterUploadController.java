@@ -0,0 +1,71 @@
+package com.spring.library.controller;
+
+import com.spring.library.service.PosterUploadService;
+import com.spring.library.service.PosterUploadService.PosterUpload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+
+@Controller
+@ResponseBody
+@PreAuthorize("hasAuthority('ADMIN')")
+public class PosterUploadController {
+
+    @Autowired
+    private PosterUploadService posterUploadService;
+
+
+    @PostMapping("/posters/uploads")
+    public Map<String, Object> startUpload(
+            @RequestParam("filename") String filename,
+            @RequestParam("size") long size,
+            @RequestParam("sha256") String sha256
+    ) throws IOException {
+        PosterUpload upload = posterUploadService.startUpload(filename, size, sha256);
+        return getUploadState(upload);
+    }
+
+    @GetMapping("/posters/uploads/{token}")
+    public Map<String, Object> getUpload(@PathVariable String token) {
+        PosterUpload upload = posterUploadService.getUpload(token);
+        return getUploadState(upload);
+    }
+
+    @PutMapping("/posters/uploads/{token}/chunks/{index:[\\d]+}")
+    public Map<String, Object> uploadChunk(
+            @PathVariable String token,
+            @PathVariable int index,
+            HttpServletRequest request
+    ) throws IOException {
+        posterUploadService.writeChunk(token, index, request.getInputStream());
+
+        PosterUpload upload = posterUploadService.getUpload(token);
+        return getUploadState(upload);
+    }
+
+    @PostMapping("/posters/uploads/{token}/complete")
+    public Map<String, Object> completeUpload(@PathVariable String token) throws IOException {
+        PosterUpload upload = posterUploadService.completeUpload(token);
+        return getUploadState(upload);
+    }
+
+
+    private Map<String, Object> getUploadState(PosterUpload upload) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("token", upload.getToken());
+        state.put("size", upload.getSize());
+        state.put("chunkSize", upload.getChunkSize());
+        state.put("chunkCount", upload.getChunkCount());
+        state.put("receivedChunks", upload.getReceivedChunkCount());
+        state.put("nextMissingChunk", upload.getMissingChunk());
+        state.put("completed", upload.isCompleted());
+        return state;
+    }
+}
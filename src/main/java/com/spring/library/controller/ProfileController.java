@@ -1,6 +1,5 @@
 package com.spring.library.controller;
 
-import com.spring.library.domain.Role;
 import com.spring.library.domain.User;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -15,7 +14,6 @@ public class ProfileController {
         ControllerUtils.isUserProfileExists(userProfile);
 
         model.addAttribute("userProfile", userProfile);
-        model.addAttribute("roles", Role.values());
         return "user/userProfile";
     }
 
@@ -1,6 +1,5 @@
 package com.spring.library.controller;
 
-import com.spring.library.domain.Assessment;
 import com.spring.library.domain.Book;
 import com.spring.library.domain.Review;
 import com.spring.library.domain.User;
@@ -42,13 +41,12 @@ public class ReviewController {
         switch (url) {
             case Book:
                 model.addAttribute("book", book);
-                model.addAttribute("reviews", book.getReviews());
-                model.addAttribute("assessments", Assessment.values());
+                model.addAttribute("reviews", reviewService.getBookReviewList(book));
                 model.addAttribute("reviewCardAction", "/books/" + book.getId() + "/reviews");
                 break;
             case User:
                 model.addAttribute("userProfile", userProfile);
-                model.addAttribute("reviews", userProfile.getReviews());
+                model.addAttribute("reviews", reviewService.getUserReviewList(userProfile));
                 model.addAttribute("reviewCardAction", "/users/" + userProfile.getId() + "/reviews");
                 break;
         }
@@ -84,8 +82,7 @@ public class ReviewController {
         }
 
         model.addAttribute("book", book);
-        model.addAttribute("reviews", book.getReviews());
-        model.addAttribute("assessments", Assessment.values());
+        model.addAttribute("reviews", reviewService.getBookReviewList(book));
         model.addAttribute("reviewCardAction", "/books/" + book.getId() + "/reviews");
         model.addAttribute("review", review);
         return "review/reviewList";
@@ -109,7 +106,6 @@ public class ReviewController {
 
         addReviewActionToModel(url, review, model);
         model.addAttribute("review", review);
-        model.addAttribute("assessments", Assessment.values());
         return "review/reviewEditPage";
     }
 
@@ -143,7 +139,6 @@ public class ReviewController {
 
         addReviewActionToModel(url, currentReview, model);
         model.addAttribute("review", editedReview);
-        model.addAttribute("assessments", Assessment.values());
         return "review/reviewEditPage";
     }
 
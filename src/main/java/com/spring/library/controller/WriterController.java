@@ -1,6 +1,7 @@
 package com.spring.library.controller;
 
 import com.spring.library.domain.Writer;
+import com.spring.library.service.BookService;
 import com.spring.library.service.WriterService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,10 +18,13 @@ public class WriterController {
     @Autowired
     private WriterService writerService;
 
+    @Autowired
+    private BookService bookService;
+
 
     @GetMapping("/writers")
-    public String getWriterList(Model model) {
-        model.addAttribute("writers", writerService.getWriterList());
+    public String getWriterList(@RequestParam(name = "after", defaultValue = "0") Long after, Model model) {
+        model.addAttribute("page", writerService.getWriterSummaryPage(after));
         return "writer/writerList";
     }
 
@@ -105,10 +109,15 @@ public class WriterController {
 
 
     @GetMapping("/writers/{writer:[\\d]+}/books")
-    public String getWriterBooksPage(@PathVariable Writer writer, Model model) {
+    public String getWriterBooksPage(
+            @PathVariable Writer writer,
+            @RequestParam(name = "after", defaultValue = "0") Long after,
+            Model model
+    ) {
         ControllerUtils.isWriterExists(writer);
 
-        model.addAttribute("books", writer.getBooks());
+        model.addAttribute("writer", writer);
+        model.addAttribute("page", bookService.getWriterBookPreviewPage(writer.getId(), after));
         return "writer/writerBooks";
     }
 }
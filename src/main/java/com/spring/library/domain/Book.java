@@ -1,5 +1,6 @@
 package com.spring.library.domain;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.validator.constraints.Length;
 import org.springframework.format.annotation.DateTimeFormat;
 
@@ -10,6 +11,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "book")
+@BatchSize(size = 50)
 public class Book {
 
     @Id
@@ -34,11 +36,12 @@ public class Book {
     @Length(max = 255, message = "Poster file name too long")
     private String filename;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "writer_id")
     private Writer writer;
 
-    @ElementCollection(targetClass = Genre.class, fetch = FetchType.EAGER)
+    @ElementCollection(targetClass = Genre.class, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @CollectionTable(name = "book_genre", joinColumns = @JoinColumn(name = "book_id"))
     @Enumerated(EnumType.STRING)
     private Set<Genre> genres;
@@ -0,0 +1,116 @@
+package com.spring.library.domain;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+
+/*
+ * One row per book with everything the book list shows, kept up to date by CatalogService
+ * in the transaction of every book, writer and review change.
+ * genres is a bitmask, bit n is the Genre with ordinal n.
+ */
+@Entity
+@Immutable
+@Table(name = "catalog_entry")
+public class CatalogEntry {
+
+    @Id
+    @Column(name = "book_id")
+    private Long id;
+
+    @Column(name = "book_name")
+    private String bookName;
+
+    @Column(name = "writer_id")
+    private Long writerId;
+
+    @Column(name = "writer_name")
+    private String writerName;
+
+    @Column(name = "genres")
+    private int genreMask;
+
+    @Column(name = "review_count")
+    private long reviewCount;
+
+    @Column(name = "positive_review_count")
+    private long positiveReviewCount;
+
+    private String filename;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
+
+    public CatalogEntry() {
+    }
+
+    public CatalogEntry(Long id, String bookName, Long writerId, String writerName, Set<Genre> genres) {
+        this.id = id;
+        this.bookName = bookName;
+        this.writerId = writerId;
+        this.writerName = writerName;
+        this.genreMask = toMask(genres);
+        this.updatedAt = new Date();
+    }
+
+
+    public Set<Genre> getGenres() {
+        Set<Genre> genres = EnumSet.noneOf(Genre.class);
+        for (Genre genre : Genre.values()) {
+            if ((genreMask & 1 << genre.ordinal()) != 0) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBookName() {
+        return bookName;
+    }
+
+    public Long getWriterId() {
+        return writerId;
+    }
+
+    public String getWriterName() {
+        return writerName;
+    }
+
+    public int getGenreMask() {
+        return genreMask;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public long getPositiveReviewCount() {
+        return positiveReviewCount;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+
+    private static int toMask(Set<Genre> genres) {
+        int mask = 0;
+        for (Genre genre : genres) {
+            mask |= 1 << genre.ordinal();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,9 @@
+package com.spring.library.domain;
+
+public enum DomainEventType {
+    BOOK_ADDED, BOOK_UPDATED, BOOK_DELETED, BOOK_REVIEWS_DELETED,
+    WRITER_ADDED, WRITER_UPDATED, WRITER_DELETED,
+    REVIEW_ADDED, REVIEW_UPDATED, REVIEW_DELETED,
+    USER_REGISTERED, USER_UPDATED, USER_ROLES_UPDATED, USER_DELETED,
+    BACKUP_RESTORED
+}
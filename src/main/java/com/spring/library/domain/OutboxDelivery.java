@@ -0,0 +1,125 @@
+package com.spring.library.domain;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/*
+ * One outbox event for one subscriber. A pending delivery that fails is tried again
+ * at nextAttemptAt, after outbox.max-attempts it is dead and kept for inspection.
+ */
+@Entity
+@Table(name = "outbox_delivery")
+public class OutboxDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "event_id")
+    private OutboxEvent event;
+
+    private String subscriber;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxDeliveryStatus status;
+
+    private int attempts;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "next_attempt_at")
+    private Date nextAttemptAt;
+
+    private String claim;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "claimed_until")
+    private Date claimedUntil;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+
+    public OutboxDelivery() {
+    }
+
+    public OutboxDelivery(OutboxEvent event, String subscriber) {
+        this.event = event;
+        this.subscriber = subscriber;
+        this.status = OutboxDeliveryStatus.PENDING;
+        this.nextAttemptAt = new Date();
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public OutboxEvent getEvent() {
+        return event;
+    }
+
+    public void setEvent(OutboxEvent event) {
+        this.event = event;
+    }
+
+    public String getSubscriber() {
+        return subscriber;
+    }
+
+    public void setSubscriber(String subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    public OutboxDeliveryStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OutboxDeliveryStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Date nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getClaim() {
+        return claim;
+    }
+
+    public void setClaim(String claim) {
+        this.claim = claim;
+    }
+
+    public Date getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Date claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
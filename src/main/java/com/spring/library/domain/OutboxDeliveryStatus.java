@@ -0,0 +1,5 @@
+package com.spring.library.domain;
+
+public enum OutboxDeliveryStatus {
+    PENDING, DELIVERED, DEAD
+}
@@ -0,0 +1,117 @@
+package com.spring.library.domain;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/*
+ * A change written in the same transaction as the change itself.
+ * parentId is the writer of a book event and the book of a review event; BOOK_REVIEWS_DELETED
+ * stands for all reviews of one book that went with their author, its parentId is the author.
+ * BACKUP_RESTORED replaced every table, its aggregateId is the created-at of the archive.
+ * A dispatcher claims undispatched events until claimedUntil, so one node fans them out.
+ */
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private DomainEventType type;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    private boolean dispatched;
+
+    private String claim;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "claimed_until")
+    private Date claimedUntil;
+
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(DomainEventType type, Long aggregateId, Long parentId) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.parentId = parentId;
+        this.createdAt = new Date();
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public DomainEventType getType() {
+        return type;
+    }
+
+    public void setType(DomainEventType type) {
+        this.type = type;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public boolean isDispatched() {
+        return dispatched;
+    }
+
+    public void setDispatched(boolean dispatched) {
+        this.dispatched = dispatched;
+    }
+
+    public String getClaim() {
+        return claim;
+    }
+
+    public void setClaim(String claim) {
+        this.claim = claim;
+    }
+
+    public Date getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Date claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+}
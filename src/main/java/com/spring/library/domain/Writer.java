@@ -1,5 +1,6 @@
 package com.spring.library.domain;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.validator.constraints.Length;
 
 import javax.persistence.*;
@@ -8,6 +9,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "writer")
+@BatchSize(size = 50)
 public class Writer {
 
     @Id
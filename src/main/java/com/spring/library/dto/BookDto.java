@@ -0,0 +1,76 @@
+package com.spring.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.spring.library.domain.Genre;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+
+@JsonFilter(FieldsFilter.NAME)
+public class BookDto {
+    private final Long id;
+    private final String name;
+    private final String annotation;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private final Date publicationDate;
+
+    private final String poster;
+    private final Long writerId;
+    private final String writerName;
+    private final Set<Genre> genres = EnumSet.noneOf(Genre.class);
+
+    public BookDto(
+            Long id,
+            String name,
+            String annotation,
+            Date publicationDate,
+            String poster,
+            Long writerId,
+            String writerFirstName,
+            String writerLastName
+    ) {
+        this.id = id;
+        this.name = name;
+        this.annotation = annotation;
+        this.publicationDate = publicationDate;
+        this.poster = poster;
+        this.writerId = writerId;
+        this.writerName = writerId == null ? null : writerLastName + ", " + writerFirstName;
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAnnotation() {
+        return annotation;
+    }
+
+    public Date getPublicationDate() {
+        return publicationDate;
+    }
+
+    public String getPoster() {
+        return poster;
+    }
+
+    public Long getWriterId() {
+        return writerId;
+    }
+
+    public String getWriterName() {
+        return writerName;
+    }
+
+    public Set<Genre> getGenres() {
+        return genres;
+    }
+}
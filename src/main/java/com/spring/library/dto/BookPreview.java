@@ -0,0 +1,35 @@
+package com.spring.library.dto;
+
+public class BookPreview {
+    public static final int ANNOTATION_LENGTH = 300;
+
+    private final Long id;
+    private final String bookName;
+    private final String annotation;
+    private final boolean isAnnotationCut;
+
+    /* annotation is only the first characters, the full text is on the book page */
+    public BookPreview(Long id, String bookName, String annotationStart) {
+        this.id = id;
+        this.bookName = bookName;
+        this.isAnnotationCut = annotationStart.length() > ANNOTATION_LENGTH;
+        this.annotation = isAnnotationCut ? annotationStart.substring(0, ANNOTATION_LENGTH) : annotationStart;
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBookName() {
+        return bookName;
+    }
+
+    public String getAnnotation() {
+        return annotation;
+    }
+
+    public boolean isAnnotationCut() {
+        return isAnnotationCut;
+    }
+}
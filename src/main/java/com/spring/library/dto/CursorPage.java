@@ -0,0 +1,24 @@
+package com.spring.library.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+public class CursorPage<T> {
+    private final List<T> items;
+    private final Long next;
+
+    /* a full page means there may be more items after the last id */
+    public CursorPage(List<T> items, int limit, Function<T, Long> idGetter) {
+        this.items = items;
+        this.next = items.size() < limit ? null : idGetter.apply(items.get(items.size() - 1));
+    }
+
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Long getNext() {
+        return next;
+    }
+}
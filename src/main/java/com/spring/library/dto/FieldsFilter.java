@@ -0,0 +1,25 @@
+package com.spring.library.dto;
+
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.util.StringUtils;
+
+import java.util.Set;
+
+/* sparse field selection: ?fields=id,name keeps only those properties of every dto */
+public class FieldsFilter {
+    public static final String NAME = "fields";
+
+    public static MappingJacksonValue apply(Object body, String fields) {
+        Set<String> selectedFields = StringUtils.commaDelimitedListToSet(fields);
+        PropertyFilter filter = selectedFields.isEmpty()
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(selectedFields);
+
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider().addFilter(NAME, filter));
+        return value;
+    }
+}
@@ -0,0 +1,48 @@
+package com.spring.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.spring.library.domain.Assessment;
+
+@JsonFilter(FieldsFilter.NAME)
+public class ReviewDto {
+    private final Long id;
+    private final String text;
+    private final Assessment assessment;
+    private final Long bookId;
+    private final Long authorId;
+    private final String authorName;
+
+    public ReviewDto(Long id, String text, Assessment assessment, Long bookId, Long authorId, String authorName) {
+        this.id = id;
+        this.text = text;
+        this.assessment = assessment;
+        this.bookId = bookId;
+        this.authorId = authorId;
+        this.authorName = authorName;
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Assessment getAssessment() {
+        return assessment;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public String getAuthorName() {
+        return authorName;
+    }
+}
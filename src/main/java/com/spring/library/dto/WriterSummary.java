@@ -0,0 +1,52 @@
+package com.spring.library.dto;
+
+public class WriterSummary {
+    private final Long id;
+    private final String firstName;
+    private final String lastName;
+    private long bookCount;
+    private long reviewCount;
+    private long positiveReviewCount;
+
+    public WriterSummary(Long id, String firstName, String lastName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+
+    public void setCounts(long bookCount, long reviewCount, long positiveReviewCount) {
+        this.bookCount = bookCount;
+        this.reviewCount = reviewCount;
+        this.positiveReviewCount = positiveReviewCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public long getBookCount() {
+        return bookCount;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public long getPositiveReviewCount() {
+        return positiveReviewCount;
+    }
+
+    /* percent of positive reviews, 0 without reviews */
+    public long getPositiveShare() {
+        return reviewCount == 0 ? 0 : Math.round(100.0 * positiveReviewCount / reviewCount);
+    }
+}
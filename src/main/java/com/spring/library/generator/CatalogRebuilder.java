@@ -0,0 +1,29 @@
+package com.spring.library.generator;
+
+import com.spring.library.service.CatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/* rebuilds catalog_entry from the source tables and exits, e.g. after a bulk import or a restore */
+@Component
+@Profile("rebuild-catalog")
+public class CatalogRebuilder implements ApplicationRunner {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ApplicationContext context;
+
+
+    @Override
+    public void run(ApplicationArguments args) {
+        catalogService.rebuild();
+        System.exit(SpringApplication.exit(context));
+    }
+}
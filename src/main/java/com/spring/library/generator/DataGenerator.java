@@ -0,0 +1,316 @@
+package com.spring.library.generator;
+
+import com.spring.library.service.CatalogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/*
+ * Fills the schema with a production-shaped dataset and exits:
+ * java -jar library.jar --spring.profiles.active=generate --generator.reviews=5000000
+ *
+ * Ids are assigned here, and every chunk of rows draws from its own random seeded by
+ * (generator.seed, table, chunk), so the same settings always produce the same data.
+ * Generated users are never admins and share one random password, logged once; a database
+ * that already has users is refused unless generator.allow-non-empty is set.
+ */
+@Component
+@Profile("generate")
+public class DataGenerator implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DataGenerator.class);
+
+    private static final int POSTERS = 8;
+
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Boris", "Clara", "Dmitry", "Elena", "Fedor", "Galina", "Ivan", "Julia", "Konstantin",
+            "Lev", "Maria", "Nikolai", "Olga", "Pavel", "Sofia", "Taras", "Vera", "Yuri", "Zoya"
+    };
+    private static final String[] LAST_NAMES = {
+            "Akhmatova", "Bulgakov", "Chekhov", "Dostoevsky", "Esenin", "Fet", "Gogol", "Herzen", "Ilf",
+            "Kuprin", "Lermontov", "Mayakovsky", "Nabokov", "Ostrovsky", "Pushkin", "Rybakov", "Sholokhov",
+            "Tolstoy", "Turgenev", "Zamyatin"
+    };
+    private static final String[] WORDS = {
+            "night", "river", "house", "winter", "garden", "letter", "road", "storm", "silence", "city",
+            "mirror", "war", "peace", "dream", "station", "island", "captain", "daughter", "stranger", "fire"
+    };
+
+    /* genre and assessment skew, weights in percent */
+    private static final String[] GENRES = {"FANTASY", "DRAMA", "HORROR", "TRAGEDY"};
+    private static final int[] GENRE_WEIGHTS = {40, 30, 20, 10};
+    private static final String[] ASSESSMENTS = {"POSITIVE", "NEUTRAL", "NEGATIVE"};
+    private static final int[] ASSESSMENT_WEIGHTS = {60, 25, 15};
+
+    @Value("${generator.seed}")
+    private long seed;
+
+    @Value("${generator.users}")
+    private int users;
+
+    @Value("${generator.writers}")
+    private int writers;
+
+    @Value("${generator.books}")
+    private int books;
+
+    @Value("${generator.reviews}")
+    private long reviews;
+
+    @Value("${generator.threads}")
+    private int threads;
+
+    @Value("${generator.batch-size}")
+    private int batchSize;
+
+    @Value("${generator.allow-non-empty}")
+    private boolean isNonEmptyAllowed;
+
+    @Value("${upload.path}")
+    private String uploadPath;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ApplicationContext context;
+
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Long existingUsers = jdbcTemplate.queryForObject("select count(*) from usr", Long.class);
+        if (existingUsers > 0 && !isNonEmptyAllowed) {
+            throw new IllegalStateException("The database already has " + existingUsers
+                    + " users, set generator.allow-non-empty=true to generate into it anyway");
+        }
+
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            createPosters();
+
+            long firstUserId = nextId("usr");
+            long firstWriterId = nextId("writer");
+            long firstBookId = nextId("book");
+            long firstReviewId = nextId("review");
+
+            generateUsers(executor, firstUserId);
+            generateWriters(executor, firstWriterId);
+            generateBooks(executor, firstBookId, firstWriterId);
+            generateReviews(executor, firstReviewId, firstBookId, firstUserId);
+            catalogService.rebuild();
+        } finally {
+            executor.shutdown();
+        }
+
+        log.info("Generated {} users, {} writers, {} books and {} reviews in {} s",
+                users, writers, books, reviews, (System.currentTimeMillis() - startTime) / 1000);
+        System.exit(SpringApplication.exit(context));
+    }
+
+
+    private void generateUsers(ExecutorService executor, long firstId) throws Exception {
+        // one bcrypt hash for everybody, encoding millions of passwords would take hours
+        byte[] passwordBytes = new byte[12];
+        new SecureRandom().nextBytes(passwordBytes);
+        String password = Base64.getUrlEncoder().withoutPadding().encodeToString(passwordBytes);
+        String encodedPassword = passwordEncoder.encode(password);
+        log.info("Generated users sign in with the password {}", password);
+
+        inChunks(executor, "usr", users, (from, to) -> {
+            List<Object[]> userRows = new ArrayList<>();
+            List<Object[]> roleRows = new ArrayList<>();
+            for (long i = from; i < to; i++) {
+                long id = firstId + i;
+                userRows.add(new Object[]{id, "user" + id, encodedPassword, true});
+                roleRows.add(new Object[]{id, "USER"});
+            }
+            jdbcTemplate.batchUpdate("insert into usr (id, username, password, active) values (?, ?, ?, ?)", userRows);
+            jdbcTemplate.batchUpdate("insert into user_role (user_id, roles) values (?, ?)", roleRows);
+        });
+    }
+
+    private void generateWriters(ExecutorService executor, long firstId) throws Exception {
+        inChunks(executor, "writer", writers, (from, to) -> {
+            SplittableRandom random = random("writer", from);
+            List<Object[]> rows = new ArrayList<>();
+            for (long i = from; i < to; i++) {
+                String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)] + "-" + i;
+                rows.add(new Object[]{firstId + i, firstName, lastName});
+            }
+            jdbcTemplate.batchUpdate("insert into writer (id, first_name, last_name) values (?, ?, ?)", rows);
+        });
+    }
+
+    private void generateBooks(ExecutorService executor, long firstId, long firstWriterId) throws Exception {
+        inChunks(executor, "book", books, (from, to) -> {
+            SplittableRandom random = random("book", from);
+            List<Object[]> bookRows = new ArrayList<>();
+            List<Object[]> genreRows = new ArrayList<>();
+            for (long i = from; i < to; i++) {
+                long id = firstId + i;
+                // a few prolific writers own most of the catalog
+                long writerId = firstWriterId + skewed(random, writers);
+                Date publicationDate = new Date(-2_000_000_000_000L + (long) (random.nextDouble() * 3_500_000_000_000L));
+                String filename = "placeholder-" + random.nextInt(POSTERS) + ".png";
+                bookRows.add(new Object[]{id, words(random, 2 + random.nextInt(4)), words(random, 40 + random.nextInt(250)),
+                        publicationDate, filename, writerId});
+
+                int genreCount = 1 + random.nextInt(3);
+                boolean[] selected = new boolean[GENRES.length];
+                for (int g = 0; g < genreCount; g++) {
+                    selected[weighted(random, GENRE_WEIGHTS)] = true;
+                }
+                for (int g = 0; g < GENRES.length; g++) {
+                    if (selected[g]) {
+                        genreRows.add(new Object[]{id, GENRES[g]});
+                    }
+                }
+            }
+            jdbcTemplate.batchUpdate("insert into book (id, book_name, annotation, publication_date, filename, writer_id) " +
+                    "values (?, ?, ?, ?, ?, ?)", bookRows);
+            jdbcTemplate.batchUpdate("insert into book_genre (book_id, genres) values (?, ?)", genreRows);
+        });
+    }
+
+    private void generateReviews(ExecutorService executor, long firstId, long firstBookId, long firstUserId)
+            throws Exception {
+        long stride = coprimeStride(books);
+
+        inChunks(executor, "review", reviews, (from, to) -> {
+            SplittableRandom random = random("review", from);
+            List<Object[]> rows = new ArrayList<>();
+            for (long i = from; i < to; i++) {
+                // the k-th review of a user walks away from a popular starting book with a stride coprime
+                // to the number of books, so nobody reviews the same book twice
+                long user = i % users;
+                long k = i / users;
+                long startBook = skewed(new SplittableRandom(seed ^ user * 0x9E3779B97F4A7C15L), books);
+                long book = (startBook + k * stride) % books;
+
+                String text = words(random, 10 + random.nextInt(120));
+                String assessment = ASSESSMENTS[weighted(random, ASSESSMENT_WEIGHTS)];
+                rows.add(new Object[]{firstId + i, text, assessment, firstBookId + book, firstUserId + user});
+            }
+            jdbcTemplate.batchUpdate("insert into review (id, text, assessment, book_id, user_id) values (?, ?, ?, ?, ?)", rows);
+        });
+    }
+
+
+    /* splits [0, count) into batches and inserts them on the pool, failing on the first failed batch */
+    private void inChunks(ExecutorService executor, String table, long count, BiConsumer<Long, Long> batch)
+            throws Exception {
+        List<Future<?>> batches = new ArrayList<>();
+        for (long from = 0; from < count; from += batchSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(from + batchSize, count);
+            batches.add(executor.submit(() -> batch.accept(chunkFrom, chunkTo)));
+        }
+
+        for (Future<?> future : batches) {
+            future.get();
+        }
+        log.info("{}: {} rows", table, count);
+    }
+
+    private long nextId(String table) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        return maxId == null ? 1 : maxId + 1;
+    }
+
+    private SplittableRandom random(String table, long chunkStart) {
+        return new SplittableRandom(seed * 31 + table.hashCode() * 1_000_003L + chunkStart);
+    }
+
+    /* power-law pick in [0, bound): low values are much more likely */
+    private static long skewed(SplittableRandom random, long bound) {
+        return Math.min(bound - 1, (long) (bound * Math.pow(random.nextDouble(), 3)));
+    }
+
+    private static int weighted(SplittableRandom random, int[] weights) {
+        int value = random.nextInt(100);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static long coprimeStride(long bound) {
+        long stride = Math.max(1, bound / 7 + 1);
+        while (gcd(stride, bound) != 1) {
+            stride++;
+        }
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private static String words(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count && text.length() < 2000; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private void createPosters() throws IOException {
+        File uploadDir = new File(uploadPath);
+        if (!uploadDir.exists()) {
+            uploadDir.mkdirs();
+        }
+
+        for (int i = 0; i < POSTERS; i++) {
+            File poster = new File(uploadDir, "placeholder-" + i + ".png");
+            if (poster.exists()) {
+                continue;
+            }
+
+            BufferedImage image = new BufferedImage(200, 300, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(Color.getHSBColor(i / (float) POSTERS, 0.5f, 0.8f));
+            graphics.fillRect(0, 0, 200, 300);
+            graphics.dispose();
+            ImageIO.write(image, "png", poster);
+        }
+    }
+}
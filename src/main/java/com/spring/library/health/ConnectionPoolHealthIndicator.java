@@ -0,0 +1,43 @@
+package com.spring.library.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/*
+ * Out of service while more than readiness.pool.max-waiting threads wait for a connection of the
+ * primary pool, so the load balancer sends new requests to other nodes until this one catches up.
+ * Part of ReadinessEndpoint only: a busy node is not a dead one.
+ */
+public class ConnectionPoolHealthIndicator extends AbstractHealthIndicator {
+    private final HikariDataSource primaryDataSource;
+    private final int maxWaiting;
+
+    public ConnectionPoolHealthIndicator(HikariDataSource primaryDataSource, int maxWaiting) {
+        this.primaryDataSource = primaryDataSource;
+        this.maxWaiting = maxWaiting;
+    }
+
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        HikariPoolMXBean pool = primaryDataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            // no connection was asked for yet
+            builder.up();
+            return;
+        }
+
+        int waiting = pool.getThreadsAwaitingConnection();
+        if (waiting > maxWaiting) {
+            builder.outOfService();
+        } else {
+            builder.up();
+        }
+        builder.withDetail("active", pool.getActiveConnections())
+                .withDetail("idle", pool.getIdleConnections())
+                .withDetail("max", primaryDataSource.getMaximumPoolSize())
+                .withDetail("waiting", waiting);
+    }
+}
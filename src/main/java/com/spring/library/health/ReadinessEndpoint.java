@@ -0,0 +1,58 @@
+package com.spring.library.health;
+
+import com.spring.library.service.WarmupService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.actuate.health.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * /actuator/readiness, the check of the load balancer: 503 until the warm-up is over and while
+ * the primary pool is saturated. /actuator/health stays the liveness check, so a node that is
+ * only busy or still warming up is taken out of rotation but never restarted.
+ *
+ * The indicators are not beans, otherwise /actuator/health would aggregate them as well.
+ */
+@Component
+@WebEndpoint(id = "readiness")
+public class ReadinessEndpoint {
+
+    @Value("${readiness.pool.max-waiting}")
+    private int maxWaiting;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private HealthAggregator healthAggregator;
+
+    private HealthIndicator readiness;
+
+
+    @PostConstruct
+    public void createIndicators() {
+        Map<String, HealthIndicator> indicators = new LinkedHashMap<>();
+        indicators.put("warmup", new WarmupHealthIndicator(warmupService));
+        indicators.put("connectionPool", new ConnectionPoolHealthIndicator(primaryDataSource, maxWaiting));
+        readiness = new CompositeHealthIndicator(healthAggregator, indicators);
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Health> readiness() {
+        Health health = readiness.health();
+        HttpStatus status = Status.UP.equals(health.getStatus()) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return new WebEndpointResponse<>(health, status.value());
+    }
+}
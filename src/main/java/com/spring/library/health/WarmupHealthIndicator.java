@@ -0,0 +1,25 @@
+package com.spring.library.health;
+
+import com.spring.library.service.WarmupService;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/* out of service until the warm-up is over; part of ReadinessEndpoint only */
+public class WarmupHealthIndicator extends AbstractHealthIndicator {
+    private final WarmupService warmupService;
+
+    public WarmupHealthIndicator(WarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (warmupService.isWarm()) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        builder.withDetail("rounds", warmupService.getCompletedRounds() + "/" + warmupService.getRounds());
+    }
+}
@@ -0,0 +1,54 @@
+package com.spring.library.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+@Aspect
+@Component
+public class MethodTimingAspect {
+    private static final String TIMER_NAME = "library.method.calls";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+
+    /* business services only: the caches, the outbox and SingleFlight are components, timed through what calls them */
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> serviceClass = ClassUtils.getUserClass(joinPoint.getTarget());
+        return time(joinPoint, "service", serviceClass.getSimpleName());
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        // the target is a Spring Data proxy, so the repository is named after its interface
+        Class<?>[] repositoryInterfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getTarget());
+        return time(joinPoint, "repository", repositoryInterfaces[0].getSimpleName());
+    }
+
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer, String className) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(TIMER_NAME,
+                    "layer", layer,
+                    "class", className,
+                    "method", joinPoint.getSignature().getName(),
+                    "exception", exception
+            ));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.spring.library.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/* registered first of all filters by MvcConfig, the statements of the security chain are the request's too */
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    /* the QueryStats of the request, set once the rest of the chain has run */
+    public static final String STATS_ATTRIBUTE = QueryBudgetFilter.class.getName() + ".stats";
+
+    @Value("${query-budget.statements}")
+    private int statementsBudget;
+
+    @Value("${query-budget.entities}")
+    private int entitiesBudget;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        QueryCounter.start();
+        QueryStats stats;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            stats = QueryCounter.stop();
+            request.setAttribute(STATS_ATTRIBUTE, stats);
+        }
+
+        String method = request.getMethod();
+        String uri = getEndpoint(request);
+        meterRegistry.summary("library.request.statements", "method", method, "uri", uri)
+                .record(stats.getStatements());
+        meterRegistry.summary("library.request.entities.loaded", "method", method, "uri", uri)
+                .record(stats.getEntitiesLoaded());
+        meterRegistry.summary("library.request.collections.initialized", "method", method, "uri", uri)
+                .record(stats.getCollectionsInitialized());
+
+        boolean isOverBudget = stats.getStatements() > statementsBudget || stats.getEntitiesLoaded() > entitiesBudget;
+        if (isOverBudget) {
+            meterRegistry.counter("library.request.query.budget.exceeded", "method", method, "uri", uri).increment();
+            log.warn("{} {} is over the query budget: {}", method, uri, stats);
+        }
+    }
+
+    /* the mapping pattern, so /books/1 and /books/2 are reported as one endpoint */
+    private String getEndpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNMAPPED" : pattern.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.spring.library.metrics;
+
+/* counts the SQL work done by the current thread between start() and stop() */
+public final class QueryCounter {
+    private static final ThreadLocal<QueryStats> currentStats = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+
+    public static void start() {
+        currentStats.set(new QueryStats());
+    }
+
+    public static QueryStats stop() {
+        QueryStats stats = currentStats.get();
+        currentStats.remove();
+        return stats == null ? new QueryStats() : stats;
+    }
+
+    public static QueryStats measure(Runnable action) {
+        start();
+        try {
+            action.run();
+            return currentStats.get();
+        } finally {
+            currentStats.remove();
+        }
+    }
+
+
+    static void statementPrepared() {
+        QueryStats stats = currentStats.get();
+        if (stats != null) {
+            stats.statementPrepared();
+        }
+    }
+
+    static void entityLoaded() {
+        QueryStats stats = currentStats.get();
+        if (stats != null) {
+            stats.entityLoaded();
+        }
+    }
+
+    static void collectionInitialized() {
+        QueryStats stats = currentStats.get();
+        if (stats != null) {
+            stats.collectionInitialized();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.spring.library.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/* registered through spring.jpa.properties.hibernate.session_factory.statement_inspector */
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.statementPrepared();
+        return sql;
+    }
+}
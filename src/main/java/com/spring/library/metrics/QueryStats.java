@@ -0,0 +1,38 @@
+package com.spring.library.metrics;
+
+public class QueryStats {
+    private int statements;
+    private int entitiesLoaded;
+    private int collectionsInitialized;
+
+    void statementPrepared() {
+        statements++;
+    }
+
+    void entityLoaded() {
+        entitiesLoaded++;
+    }
+
+    void collectionInitialized() {
+        collectionsInitialized++;
+    }
+
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public int getCollectionsInitialized() {
+        return collectionsInitialized;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + entitiesLoaded + " entities loaded, "
+                + collectionsInitialized + " collections initialized";
+    }
+}
@@ -0,0 +1,169 @@
+package com.spring.library.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringApplicationRunListener;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Times the startup phases and the creation of every bean, logs both once the application runs,
+ * then logs when the first request was served. Registered in META-INF/spring.factories, so it
+ * is in place before any bean definition is read.
+ *
+ * A bean's time is its own: instantiation, injection and init methods, without the time spent
+ * creating the beans it depends on.
+ */
+public class StartupReport implements SpringApplicationRunListener {
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final BeanTimer beanTimer = new BeanTimer();
+    private long phaseStartTime = System.nanoTime();
+    private volatile long readyAtMillis;
+
+
+    public StartupReport(SpringApplication application, String[] args) {
+    }
+
+
+    @Override
+    public void starting() {
+        long jvmUptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        phaseNanos.put("jvm", TimeUnit.MILLISECONDS.toNanos(jvmUptimeMillis));
+        phaseStartTime = System.nanoTime();
+    }
+
+    @Override
+    public void environmentPrepared(ConfigurableEnvironment environment) {
+        endPhase("environment");
+    }
+
+    @Override
+    public void contextPrepared(ConfigurableApplicationContext context) {
+        endPhase("context");
+        context.getBeanFactory().addBeanPostProcessor(beanTimer);
+    }
+
+    @Override
+    public void contextLoaded(ConfigurableApplicationContext context) {
+        endPhase("bean definitions");
+        context.addApplicationListener(new FirstRequestListener());
+    }
+
+    @Override
+    public void started(ConfigurableApplicationContext context) {
+        endPhase("refresh");
+    }
+
+    @Override
+    public void running(ConfigurableApplicationContext context) {
+        endPhase("runners");
+        readyAtMillis = System.currentTimeMillis();
+        if (context.getEnvironment().getProperty("startup.report.enabled", Boolean.class, true)) {
+            report(context.getEnvironment().getProperty("startup.report.beans", Integer.class, 20));
+        }
+    }
+
+    @Override
+    public void failed(ConfigurableApplicationContext context, Throwable exception) {
+        endPhase("failed");
+        report(20);
+    }
+
+
+    private void endPhase(String name) {
+        long now = System.nanoTime();
+        phaseNanos.put(name, now - phaseStartTime);
+        phaseStartTime = now;
+    }
+
+    private void report(int beanCount) {
+        StringBuilder report = new StringBuilder("Startup phases:");
+        long totalNanos = 0;
+        for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+            totalNanos += phase.getValue();
+            report.append(String.format("%n%8d ms  %s", toMillis(phase.getValue()), phase.getKey()));
+        }
+        report.append(String.format("%n%8d ms  total since the JVM started", toMillis(totalNanos)));
+
+        report.append(String.format("%nSlowest of %d beans:", beanTimer.ownNanos.size()));
+        beanTimer.ownNanos.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(beanCount)
+                .forEach(bean -> report.append(String.format("%n%8d ms  %s", toMillis(bean.getValue()), bean.getKey())));
+
+        log.info(report.toString());
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+
+    private static class BeanTimer implements InstantiationAwareBeanPostProcessor {
+        private final Map<String, Long> ownNanos = new ConcurrentHashMap<>();
+        private final ThreadLocal<Deque<BeanCreation>> creations = ThreadLocal.withInitial(ArrayDeque::new);
+
+        @Override
+        public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+            creations.get().push(new BeanCreation(beanName));
+            return null;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            Deque<BeanCreation> stack = creations.get();
+            // objects made by factory beans were never instantiated through this post processor
+            if (stack.stream().noneMatch(creation -> creation.beanName.equals(beanName))) {
+                return bean;
+            }
+
+            BeanCreation creation;
+            do {
+                creation = stack.pop();
+            } while (!creation.beanName.equals(beanName));
+
+            long elapsedNanos = System.nanoTime() - creation.startTime;
+            ownNanos.merge(beanName, elapsedNanos - creation.dependencyNanos, Long::sum);
+            if (!stack.isEmpty()) {
+                stack.peek().dependencyNanos += elapsedNanos;
+            }
+            return bean;
+        }
+    }
+
+    private static class BeanCreation {
+        private final String beanName;
+        private final long startTime = System.nanoTime();
+        private long dependencyNanos;
+
+        BeanCreation(String beanName) {
+            this.beanName = beanName;
+        }
+    }
+
+    private class FirstRequestListener implements ApplicationListener<ServletRequestHandledEvent> {
+        private final AtomicBoolean isServed = new AtomicBoolean();
+
+        @Override
+        public void onApplicationEvent(ServletRequestHandledEvent event) {
+            if (isServed.compareAndSet(false, true)) {
+                log.info("First request served {} ms after the JVM started, {} ms after the application was ready",
+                        ManagementFactory.getRuntimeMXBean().getUptime(),
+                        readyAtMillis == 0 ? 0 : System.currentTimeMillis() - readyAtMillis);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.spring.library.metrics;
+
+import freemarker.template.SimpleHash;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerView;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/* records the render time of every view as library.view.render, tagged by template */
+public class TimedFreeMarkerView extends FreeMarkerView {
+    private Timer renderTimer;
+
+    @Override
+    protected void initServletContext(ServletContext servletContext) {
+        super.initServletContext(servletContext);
+
+        MeterRegistry meterRegistry = obtainApplicationContext().getBean(MeterRegistry.class);
+        renderTimer = meterRegistry.timer("library.view.render", "view", getUrl());
+    }
+
+    @Override
+    protected void processTemplate(
+            Template template,
+            SimpleHash model,
+            HttpServletResponse response
+    ) throws IOException, TemplateException {
+        long startTime = System.nanoTime();
+        try {
+            super.processTemplate(template, model, response);
+        } finally {
+            renderTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+}
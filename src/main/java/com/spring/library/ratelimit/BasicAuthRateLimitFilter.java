@@ -0,0 +1,61 @@
+package com.spring.library.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * Runs before the basic authentication filter, so a rejected attempt never reaches BCrypt.
+ * Every request with Basic credentials counts against its address and against the username it
+ * names: one address trying many accounts and many addresses guessing one password are both held.
+ */
+public class BasicAuthRateLimitFilter extends OncePerRequestFilter {
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final RateLimiter rateLimiter;
+
+    public BasicAuthRateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            RateLimiter.Rule rule = rateLimiter.getBasicAuthRule();
+            if (RateLimitFilter.isRejected(rateLimiter, rule, "ip:" + request.getRemoteAddr(), response)) {
+                return;
+            }
+
+            String username = getUsername(authorization.substring(BASIC_PREFIX.length()).trim());
+            if (username != null && RateLimitFilter.isRejected(rateLimiter, rule, "username:" + username, response)) {
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /* null for credentials the basic authentication filter will reject anyway */
+    private static String getUsername(String credentials) {
+        try {
+            String decoded = new String(Base64.getDecoder().decode(credentials), StandardCharsets.UTF_8);
+            int colon = decoded.indexOf(':');
+            return colon < 0 ? null : decoded.substring(0, colon);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.spring.library.ratelimit;
+
+import com.spring.library.domain.User;
+import com.spring.library.ratelimit.RateLimiter.Rule;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/*
+ * Runs inside the security chain once the user is known: before the login filter in the browser
+ * chain, where a rejected login attempt never reaches BCrypt, and after basic authentication in
+ * the api chain, so api calls count per user.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        Rule rule = rateLimiter.findRule(request.getMethod(), urlPathHelper.getPathWithinApplication(request));
+        if (rule != null && isRejected(rateLimiter, rule, getClient(request), response)) {
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    static boolean isRejected(RateLimiter rateLimiter, Rule rule, String client, HttpServletResponse response)
+            throws IOException {
+        long retryAfterSeconds = rateLimiter.tryAcquire(rule, client);
+        if (retryAfterSeconds == 0) {
+            return false;
+        }
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "TOO MANY REQUESTS");
+        return true;
+    }
+
+    /* signed in users by id, everybody else by address */
+    private String getClient(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            return "user:" + ((User) authentication.getPrincipal()).getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,119 @@
+package com.spring.library.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class RateLimiter {
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    /* "METHOD /url/pattern permits seconds", e.g. "POST /login 10 60" */
+    @Value("${rate-limit.rules}")
+    private String[] ruleSpecs;
+
+    /* "permits seconds" for every request that carries HTTP Basic credentials, whatever its url */
+    @Value("${rate-limit.basic-auth}")
+    private String basicAuthSpec;
+
+    @Value("${rate-limit.max-clients}")
+    private long maxClients;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Rule> rules = new ArrayList<>();
+    private Rule basicAuthRule;
+    private Cache<String, TokenBucket> buckets;
+
+
+    @PostConstruct
+    public void createRules() {
+        long longestPeriodNanos = 0;
+        for (String ruleSpec : ruleSpecs) {
+            if (ruleSpec.trim().isEmpty()) {
+                continue;
+            }
+
+            String[] parts = ruleSpec.trim().split("\\s+");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Rate limit rule must be 'METHOD pattern permits seconds': " + ruleSpec);
+            }
+            Rule rule = new Rule(parts[0], parts[1], Integer.parseInt(parts[2]), Long.parseLong(parts[3]));
+            rules.add(rule);
+            longestPeriodNanos = Math.max(longestPeriodNanos, rule.periodNanos);
+        }
+
+        String[] parts = basicAuthSpec.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Basic authentication rate limit must be 'permits seconds': " + basicAuthSpec);
+        }
+        basicAuthRule = new Rule("BASIC", "*", Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+        longestPeriodNanos = Math.max(longestPeriodNanos, basicAuthRule.periodNanos);
+
+        // a bucket idle for a whole period is full again, so forgetting it changes nothing
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Math.max(longestPeriodNanos, 1), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+
+    public Rule findRule(String method, String path) {
+        for (Rule rule : rules) {
+            if (rule.method.equalsIgnoreCase(method) && pathMatcher.match(rule.pattern, path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    public Rule getBasicAuthRule() {
+        return basicAuthRule;
+    }
+
+    /* 0 when the request may go on, otherwise seconds until the client may retry */
+    public long tryAcquire(Rule rule, String client) {
+        TokenBucket bucket = buckets.get(rule.getName() + "|" + client, key -> new TokenBucket());
+        long waitNanos = bucket.tryAcquire(System.nanoTime(), rule.permitNanos, rule.periodNanos);
+        if (waitNanos == 0) {
+            return 0;
+        }
+
+        meterRegistry.counter("library.rate.limit.rejected", "rule", rule.getName()).increment();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+
+    public static class Rule {
+        private final String method;
+        private final String pattern;
+        private final long permitNanos;
+        private final long periodNanos;
+
+        Rule(String method, String pattern, int permits, long seconds) {
+            if (permits <= 0 || seconds <= 0) {
+                throw new IllegalArgumentException("Rate limit permits and seconds must be positive: "
+                        + method + " " + pattern + " " + permits + " " + seconds);
+            }
+            this.method = method;
+            this.pattern = pattern;
+            this.periodNanos = TimeUnit.SECONDS.toNanos(seconds);
+            this.permitNanos = periodNanos / permits;
+        }
+
+        public String getName() {
+            return method + " " + pattern;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.spring.library.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Token bucket kept as a single "theoretical arrival time" (GCRA), so taking
+ * a permit is one compare-and-set and never blocks.
+ */
+class TokenBucket {
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+
+    /* 0 when a permit was taken, otherwise nanos until the next one is available */
+    long tryAcquire(long now, long permitNanos, long periodNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long nextArrival = Math.max(arrival, now) + permitNanos;
+            long waitNanos = nextArrival - now - periodNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, nextArrival)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -2,8 +2,51 @@ package com.spring.library.repos;
 
 import com.spring.library.domain.Book;
 import com.spring.library.domain.Writer;
+import com.spring.library.dto.BookDto;
+import com.spring.library.dto.BookPreview;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface BookRepo extends JpaRepository<Book, Long> {
+    /* the book page and the edit form show the writer and the genres */
+    @Override
+    @EntityGraph(attributePaths = {"writer", "genres"})
+    Optional<Book> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"writer", "genres"})
+    List<Book> findAllById(Iterable<Long> ids);
+
     Book findByBookNameAndWriter(String bookName, Writer writer);
+
+
+
+    String BOOK_DTO_QUERY = "select new com.spring.library.dto.BookDto(" +
+            "b.id, b.bookName, b.annotation, b.publicationDate, b.filename, w.id, w.firstName, w.lastName) " +
+            "from Book b left join b.writer w ";
+
+    @Query(BOOK_DTO_QUERY + "where b.id = :id")
+    BookDto findBookDto(@Param("id") Long id);
+
+    @Query(BOOK_DTO_QUERY + "where b.id > :after order by b.id")
+    List<BookDto> findBookDtos(@Param("after") Long after, Pageable pageable);
+
+    @Query(BOOK_DTO_QUERY + "where w.id = :writerId and b.id > :after order by b.id")
+    List<BookDto> findWriterBookDtos(@Param("writerId") Long writerId, @Param("after") Long after, Pageable pageable);
+
+    // one character more than the preview tells whether the annotation goes on
+    @Query("select new com.spring.library.dto.BookPreview(b.id, b.bookName, " +
+            "substring(b.annotation, 1, " + (BookPreview.ANNOTATION_LENGTH + 1) + ")) " +
+            "from Book b where b.writer.id = :writerId and b.id > :after order by b.id")
+    List<BookPreview> findWriterBookPreviews(@Param("writerId") Long writerId, @Param("after") Long after, Pageable pageable);
+
+    @Query("select b.id, g from Book b join b.genres g where b.id in :bookIds")
+    List<Object[]> findGenresByBookIds(@Param("bookIds") Collection<Long> bookIds);
 }
@@ -0,0 +1,22 @@
+package com.spring.library.repos;
+
+import com.spring.library.domain.CatalogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+
+import java.util.List;
+
+public interface CatalogEntryRepo extends JpaRepository<CatalogEntry, Long> {
+    /* a range scan of the primary key, nothing is joined; read-only, so chunks go to a replica */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"))
+    List<CatalogEntry> findByIdGreaterThan(Long id, Pageable pageable);
+
+    /* the most reviewed books, read backwards from the review_count index */
+    @Transactional(readOnly = true)
+    List<CatalogEntry> findByOrderByReviewCountDesc(Pageable pageable);
+}
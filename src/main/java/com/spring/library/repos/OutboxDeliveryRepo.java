@@ -0,0 +1,71 @@
+package com.spring.library.repos;
+
+import com.spring.library.domain.OutboxDelivery;
+import com.spring.library.domain.OutboxDeliveryStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface OutboxDeliveryRepo extends JpaRepository<OutboxDelivery, Long> {
+    /* nothing behind a delivery that is backing off or claimed, so a subscriber gets its events in order */
+    @Query("select d.id from OutboxDelivery d " +
+            "where d.subscriber = :subscriber " +
+            "and d.status = com.spring.library.domain.OutboxDeliveryStatus.PENDING " +
+            "and d.nextAttemptAt <= :now and (d.claimedUntil is null or d.claimedUntil < :now) " +
+            "and not exists (select b.id from OutboxDelivery b " +
+            "where b.subscriber = :subscriber and b.id < d.id " +
+            "and b.status = com.spring.library.domain.OutboxDeliveryStatus.PENDING " +
+            "and (b.nextAttemptAt > :now or b.claimedUntil >= :now)) " +
+            "order by d.id")
+    List<Long> findDueIds(@Param("subscriber") String subscriber, @Param("now") Date now, Pageable pageable);
+
+    /* only rows no other claim holds are taken, so concurrent claims get disjoint deliveries */
+    @Transactional
+    @Modifying
+    @Query("update OutboxDelivery d set d.claim = :claim, d.claimedUntil = :until " +
+            "where d.id in :ids and d.status = com.spring.library.domain.OutboxDeliveryStatus.PENDING " +
+            "and (d.claimedUntil is null or d.claimedUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claim") String claim,
+              @Param("until") Date until, @Param("now") Date now);
+
+    @Query("select d from OutboxDelivery d join fetch d.event " +
+            "where d.subscriber = :subscriber " +
+            "and d.status = com.spring.library.domain.OutboxDeliveryStatus.PENDING " +
+            "and d.claim = :claim " +
+            "order by d.event.id")
+    List<OutboxDelivery> findClaimed(@Param("subscriber") String subscriber, @Param("claim") String claim);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxDelivery d set d.claim = null, d.claimedUntil = null where d.id in :ids")
+    int release(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxDelivery d set d.status = com.spring.library.domain.OutboxDeliveryStatus.DELIVERED, " +
+            "d.attempts = d.attempts + 1, d.claim = null, d.claimedUntil = null " +
+            "where d.id in :ids")
+    int markDelivered(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxDelivery d set d.status = :status, d.attempts = d.attempts + 1, " +
+            "d.nextAttemptAt = :nextAttemptAt, d.lastError = :error, d.claim = null, d.claimedUntil = null " +
+            "where d.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") OutboxDeliveryStatus status,
+                   @Param("nextAttemptAt") Date nextAttemptAt, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxDelivery d " +
+            "where d.status = com.spring.library.domain.OutboxDeliveryStatus.DELIVERED " +
+            "and d.event.id in (select e.id from OutboxEvent e where e.createdAt < :before)")
+    int deleteDeliveredBefore(@Param("before") Date before);
+}
@@ -0,0 +1,47 @@
+package com.spring.library.repos;
+
+import com.spring.library.domain.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface OutboxEventRepo extends JpaRepository<OutboxEvent, Long> {
+    @Query("select e.id from OutboxEvent e " +
+            "where e.dispatched = false and (e.claimedUntil is null or e.claimedUntil < :now) " +
+            "order by e.id")
+    List<Long> findClaimableIds(@Param("now") Date now, Pageable pageable);
+
+    /* only rows no other claim holds are taken, so concurrent claims get disjoint events */
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.claim = :claim, e.claimedUntil = :until " +
+            "where e.id in :ids and e.dispatched = false and (e.claimedUntil is null or e.claimedUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claim") String claim,
+              @Param("until") Date until, @Param("now") Date now);
+
+    @Query("select e from OutboxEvent e where e.dispatched = false and e.claim = :claim order by e.id")
+    List<OutboxEvent> findClaimed(@Param("claim") String claim);
+
+    List<OutboxEvent> findByIdGreaterThan(Long id, Pageable pageable);
+
+    @Query("select max(e.id) from OutboxEvent e")
+    Long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.dispatched = true where e.id in :ids")
+    int markDispatched(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.dispatched = true and e.createdAt < :before " +
+            "and not exists (select d.id from OutboxDelivery d where d.event = e)")
+    int deleteDispatchedBefore(@Param("before") Date before);
+}
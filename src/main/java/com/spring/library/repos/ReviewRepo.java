@@ -1,8 +1,49 @@
 package com.spring.library.repos;
 
+import com.spring.library.domain.Book;
 import com.spring.library.domain.Review;
+import com.spring.library.domain.User;
+import com.spring.library.dto.ReviewDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface ReviewRepo extends JpaRepository<Review, Long> {
+    /*
+     * the author is compared with the current user, so it cannot stay a proxy;
+     * book and author are loaded whole, so path variables reuse them without another query
+     */
+    @Override
+    @EntityGraph(attributePaths = {"book", "book.writer", "book.genres", "author", "author.roles"})
+    Optional<Review> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"book", "book.writer", "book.genres", "author", "author.roles"})
+    List<Review> findAllById(Iterable<Long> ids);
+
     Review findByAuthor_IdAndBook_Id(Long userId, Long bookId);
+
+    /* book id and assessment of every review of the user */
+    @Query("select r.book.id, r.assessment from Review r where r.author.id = :userId")
+    List<Object[]> findBookIdsAndAssessmentsByAuthor_Id(@Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = {"book", "author"})
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"))
+    List<Review> findByBookAndIdGreaterThan(Book book, Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"book", "author"})
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"))
+    List<Review> findByAuthorAndIdGreaterThan(User author, Long id, Pageable pageable);
+
+    @Query("select new com.spring.library.dto.ReviewDto(r.id, r.text, r.assessment, r.book.id, a.id, a.username) " +
+            "from Review r join r.author a where r.book.id = :bookId and r.id > :after order by r.id")
+    List<ReviewDto> findBookReviewDtos(@Param("bookId") Long bookId, @Param("after") Long after, Pageable pageable);
 }
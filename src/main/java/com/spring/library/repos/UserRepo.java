@@ -1,8 +1,29 @@
 package com.spring.library.repos;
 
 import com.spring.library.domain.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface UserRepo extends JpaRepository<User, Long> {
+    /* roles are read from the principal long after the login transaction */
+    @EntityGraph(attributePaths = "roles")
     User findByUsername(String username);
+
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAllById(Iterable<Long> ids);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"))
+    List<User> findByIdGreaterThan(Long id, Pageable pageable);
 }
@@ -1,8 +1,25 @@
 package com.spring.library.repos;
 
 import com.spring.library.domain.Writer;
+import com.spring.library.dto.WriterSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface WriterRepo extends JpaRepository<Writer, Long> {
     Writer findByFirstNameAndLastName(String firstName, String lastName);
+
+    @Query("select new com.spring.library.dto.WriterSummary(w.id, w.firstName, w.lastName) " +
+            "from Writer w where w.id > :after order by w.id")
+    List<WriterSummary> findWriterSummaries(@Param("after") Long after, Pageable pageable);
+
+    /* writer id, books, reviews, positive reviews; writers without books are not returned */
+    @Query("select b.writer.id, count(distinct b.id), count(r.id), " +
+            "sum(case when r.assessment = com.spring.library.domain.Assessment.POSITIVE then 1 else 0 end) " +
+            "from Book b left join b.reviews r where b.writer.id in :writerIds group by b.writer.id")
+    List<Object[]> countBooksAndReviews(@Param("writerIds") Collection<Long> writerIds);
 }
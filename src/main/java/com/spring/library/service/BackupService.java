@@ -0,0 +1,456 @@
+package com.spring.library.service;
+
+import com.spring.library.domain.DomainEventType;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/*
+ * Backup archive of the tables and the posters their books refer to, written straight to a stream.
+ *
+ * Every table is read in one repeatable read transaction, so the archive holds one snapshot of the
+ * database, and the posters are the ones named by that snapshot; they are copied after that
+ * transaction is over. An incremental archive still has all rows, but only the posters modified
+ * since the given time; restoring a full archive and then the incremental ones in order gives the
+ * state of the last one.
+ *
+ * A restore reads the archive from a temporary copy: the posters are extracted next to their final
+ * place first, and the tables are replaced in one transaction that moves the posters in just before
+ * it commits. A broken archive changes nothing, and BACKUP_RESTORED drops the entity caches of all
+ * nodes.
+ *
+ * Entries: manifest.properties, db/<table>.rows for each table in TABLES order, posters/<filename>
+ * and summary.properties. catalog_entry is derived and rebuilt after a restore, outbox_event is
+ * left alone.
+ */
+@Service
+public class BackupService {
+    private static final Logger log = LoggerFactory.getLogger(BackupService.class);
+
+    private static final int FORMAT = 1;
+    private static final String MANIFEST = "manifest.properties";
+    private static final String SUMMARY = "summary.properties";
+    private static final String TABLE_PREFIX = "db/";
+    private static final String POSTER_PREFIX = "posters/";
+
+    // parents before children: restore inserts in this order and deletes in the reverse one
+    private static final List<String> TABLES = Arrays.asList("usr", "user_role", "writer", "book", "book_genre", "review");
+    private static final Map<String, String> TABLE_ORDER = new HashMap<>();
+
+    static {
+        TABLE_ORDER.put("user_role", "user_id");
+        TABLE_ORDER.put("book_genre", "book_id");
+    }
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte DATE = 3;
+    private static final byte TIMESTAMP = 4;
+    private static final byte STRING = 5;
+
+    @Value("${upload.path}")
+    private String uploadPath;
+
+    @Value("${backup.fetch-size}")
+    private int fetchSize;
+
+    @Value("${backup.restore-batch-size}")
+    private int restoreBatchSize;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private Flyway flyway;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+
+    /* rows are streamed from the server one by one instead of being read into memory first */
+    @PostConstruct
+    public void createJdbcTemplate() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+
+    public void writeBackup(OutputStream output, Long postersSince) throws IOException {
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setReadOnly(true);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        long startTime = System.currentTimeMillis();
+        ZipOutputStream zip = new ZipOutputStream(output);
+        Properties summary = new Properties();
+        List<String> filenames = snapshot.execute(status -> {
+            try {
+                writeTables(zip, startTime, postersSince, summary);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // placeholders of generated data are shared by many books, each file is written once
+            return streamingJdbcTemplate.queryForList(
+                    "select distinct filename from book where filename is not null", String.class);
+        });
+        writePosters(zip, filenames, postersSince, summary);
+
+        zip.putNextEntry(new ZipEntry(SUMMARY));
+        summary.store(new OutputStreamWriter(zip, "UTF-8"), null);
+        zip.closeEntry();
+        zip.finish();
+        log.info("Backup written in {} ms: {}", System.currentTimeMillis() - startTime, summary);
+    }
+
+    public Properties restore(InputStream input) throws IOException {
+        Path archive = Files.createTempFile("library-restore", ".zip");
+        List<Path> stagedPosters = new ArrayList<>();
+        try {
+            Files.copy(input, archive, StandardCopyOption.REPLACE_EXISTING);
+            try (ZipFile zip = openArchive(archive)) {
+                ZipEntry manifestEntry = zip.getEntry(MANIFEST);
+                if (manifestEntry == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "NOT A BACKUP ARCHIVE");
+                }
+
+                Properties manifest = new Properties();
+                try (InputStream manifestInput = zip.getInputStream(manifestEntry)) {
+                    manifest.load(new InputStreamReader(manifestInput, "UTF-8"));
+                }
+                checkManifest(manifest);
+
+                Properties summary = new Properties();
+                Map<Path, Path> posters = stagePosters(zip, stagedPosters);
+                summary.setProperty("posters", String.valueOf(posters.size()));
+
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.execute(status -> {
+                    try {
+                        restoreTables(zip, manifest, summary);
+                        domainEventPublisher.publish(DomainEventType.BACKUP_RESTORED,
+                                Long.valueOf(manifest.getProperty("created-at")));
+                        // a failed move rolls the tables back, the posters moved so far are those of the archive
+                        for (Map.Entry<Path, Path> poster : posters.entrySet()) {
+                            Files.move(poster.getKey(), poster.getValue(), StandardCopyOption.REPLACE_EXISTING);
+                        }
+                        return null;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+                catalogService.rebuild();
+                log.info("Backup of {} restored: {}", manifest.getProperty("created-at"), summary);
+                return summary;
+            }
+        } finally {
+            for (Path stagedPoster : stagedPosters) {
+                Files.deleteIfExists(stagedPoster);
+            }
+            Files.deleteIfExists(archive);
+        }
+    }
+
+
+    private void writeTables(ZipOutputStream zip, long createdAt, Long postersSince, Properties summary)
+            throws IOException {
+        DataOutputStream rows = new DataOutputStream(zip);
+
+        Properties manifest = new Properties();
+        manifest.setProperty("format", String.valueOf(FORMAT));
+        manifest.setProperty("schema-version", getSchemaVersion());
+        manifest.setProperty("created-at", String.valueOf(createdAt));
+        manifest.setProperty("posters-since", postersSince == null ? "" : String.valueOf(postersSince));
+        manifest.setProperty("tables", String.join(",", TABLES));
+        for (String table : TABLES) {
+            manifest.setProperty("columns." + table, String.join(",", getColumns(table)));
+        }
+        zip.putNextEntry(new ZipEntry(MANIFEST));
+        manifest.store(new OutputStreamWriter(zip, "UTF-8"), null);
+        zip.closeEntry();
+
+        for (String table : TABLES) {
+            zip.putNextEntry(new ZipEntry(TABLE_PREFIX + table + ".rows"));
+            long count = writeRows(rows, table, manifest.getProperty("columns." + table));
+            rows.flush();
+            zip.closeEntry();
+            summary.setProperty("rows." + table, String.valueOf(count));
+        }
+    }
+
+    private void writePosters(ZipOutputStream zip, List<String> filenames, Long postersSince, Properties summary)
+            throws IOException {
+        int posters = 0;
+        List<String> missing = new ArrayList<>();
+        for (String filename : filenames) {
+            File poster = new File(uploadPath, filename);
+            if (!poster.isFile()) {
+                missing.add(filename);
+            } else if (postersSince == null || poster.lastModified() >= postersSince) {
+                zip.putNextEntry(new ZipEntry(POSTER_PREFIX + filename));
+                Files.copy(poster.toPath(), zip);
+                zip.closeEntry();
+                posters++;
+            }
+        }
+        summary.setProperty("posters", String.valueOf(posters));
+        summary.setProperty("missing-posters", String.join(",", missing));
+    }
+
+    private long writeRows(DataOutputStream rows, String table, String columns) {
+        long[] count = {0};
+        String orderColumn = TABLE_ORDER.getOrDefault(table, "id");
+        streamingJdbcTemplate.query("select " + columns + " from " + table + " order by " + orderColumn,
+                (RowCallbackHandler) resultSet -> {
+                    try {
+                        rows.writeBoolean(true);
+                        ResultSetMetaData metaData = resultSet.getMetaData();
+                        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                            writeValue(rows, resultSet, column, metaData.getColumnType(column));
+                        }
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+        try {
+            rows.writeBoolean(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count[0];
+    }
+
+    private void restoreTables(ZipFile zip, Properties manifest, Properties summary) throws IOException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("delete from catalog_entry");
+        for (int i = TABLES.size() - 1; i >= 0; i--) {
+            jdbcTemplate.update("delete from " + TABLES.get(i));
+        }
+
+        for (String table : TABLES) {
+            ZipEntry entry = zip.getEntry(TABLE_PREFIX + table + ".rows");
+            if (entry == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "TABLE MISSING IN BACKUP");
+            }
+
+            String[] columns = manifest.getProperty("columns." + table).split(",");
+            try (DataInputStream rows = new DataInputStream(new BufferedInputStream(zip.getInputStream(entry)))) {
+                long count = restoreRows(jdbcTemplate, rows, table, columns);
+                summary.setProperty("rows." + table, String.valueOf(count));
+            }
+        }
+    }
+
+    private long restoreRows(JdbcTemplate jdbcTemplate, DataInputStream rows, String table, String[] columns)
+            throws IOException {
+        String sql = "insert into " + table + " (" + String.join(",", columns) + ") values ("
+                + String.join(",", Collections.nCopies(columns.length, "?")) + ")";
+        List<Object[]> batch = new ArrayList<>();
+        long count = 0;
+        while (rows.readBoolean()) {
+            Object[] row = new Object[columns.length];
+            for (int column = 0; column < columns.length; column++) {
+                row[column] = readValue(rows);
+            }
+            batch.add(row);
+            count++;
+
+            if (batch.size() == restoreBatchSize) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+        return count;
+    }
+
+    /* staged file -> poster, each written next to the poster so the move never copies */
+    private Map<Path, Path> stagePosters(ZipFile zip, List<Path> stagedPosters) throws IOException {
+        Path uploadDir = Paths.get(uploadPath);
+        Files.createDirectories(uploadDir);
+
+        Map<Path, Path> posters = new LinkedHashMap<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.getName().startsWith(POSTER_PREFIX)) {
+                continue;
+            }
+
+            String filename = entry.getName().substring(POSTER_PREFIX.length());
+            if (filename.isEmpty() || !filename.equals(new File(filename).getName()) || filename.startsWith(".")) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "INCORRECT POSTER NAME IN BACKUP");
+            }
+
+            Path stagedPoster = uploadDir.resolve("." + filename + ".restore");
+            stagedPosters.add(stagedPoster);
+            try (InputStream poster = zip.getInputStream(entry)) {
+                Files.copy(poster, stagedPoster, StandardCopyOption.REPLACE_EXISTING);
+            }
+            posters.put(stagedPoster, uploadDir.resolve(filename));
+        }
+        return posters;
+    }
+
+    private static ZipFile openArchive(Path archive) throws IOException {
+        try {
+            return new ZipFile(archive.toFile());
+        } catch (ZipException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "NOT A BACKUP ARCHIVE");
+        }
+    }
+
+    private void checkManifest(Properties manifest) {
+        if (!String.valueOf(FORMAT).equals(manifest.getProperty("format"))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "UNSUPPORTED BACKUP FORMAT");
+        }
+        if (manifest.getProperty("created-at") == null || !manifest.getProperty("created-at").matches("\\d{1,18}")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CORRUPTED BACKUP");
+        }
+        if (!getSchemaVersion().equals(manifest.getProperty("schema-version"))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "BACKUP SCHEMA VERSION DOES NOT MATCH");
+        }
+        // the column lists end up in the insert statements, so they must be exactly the current ones
+        for (String table : TABLES) {
+            if (!String.join(",", getColumns(table)).equals(manifest.getProperty("columns." + table))) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "BACKUP TABLES DO NOT MATCH");
+            }
+        }
+    }
+
+    private String getSchemaVersion() {
+        MigrationInfo current = flyway == null ? null : flyway.info().current();
+        return current == null ? "none" : current.getVersion().getVersion();
+    }
+
+    /* the column names of the table as the database has them, read without fetching a row */
+    private List<String> getColumns(String table) {
+        return streamingJdbcTemplate.query("select * from " + table + " where 1 = 0", resultSet -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            List<String> columns = new ArrayList<>();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                columns.add(metaData.getColumnName(column));
+            }
+            return columns;
+        });
+    }
+
+    private static void writeValue(DataOutputStream output, ResultSet resultSet, int column, int type)
+            throws SQLException, IOException {
+        switch (type) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                long number = resultSet.getLong(column);
+                if (resultSet.wasNull()) {
+                    output.writeByte(NULL);
+                } else {
+                    output.writeByte(LONG);
+                    output.writeLong(number);
+                }
+                break;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                boolean flag = resultSet.getBoolean(column);
+                if (resultSet.wasNull()) {
+                    output.writeByte(NULL);
+                } else {
+                    output.writeByte(BOOLEAN);
+                    output.writeBoolean(flag);
+                }
+                break;
+            case Types.DATE:
+                writeTime(output, DATE, resultSet.getDate(column));
+                break;
+            case Types.TIMESTAMP:
+                writeTime(output, TIMESTAMP, resultSet.getTimestamp(column));
+                break;
+            default:
+                String text = resultSet.getString(column);
+                if (text == null) {
+                    output.writeByte(NULL);
+                } else {
+                    byte[] bytes = text.getBytes("UTF-8");
+                    output.writeByte(STRING);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+        }
+    }
+
+    private static void writeTime(DataOutputStream output, byte type, java.util.Date time) throws IOException {
+        if (time == null) {
+            output.writeByte(NULL);
+        } else {
+            output.writeByte(type);
+            output.writeLong(time.getTime());
+        }
+    }
+
+    private static Object readValue(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case LONG:
+                return input.readLong();
+            case BOOLEAN:
+                return input.readBoolean();
+            case DATE:
+                return new Date(input.readLong());
+            case TIMESTAMP:
+                return new Timestamp(input.readLong());
+            case STRING:
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                return new String(bytes, "UTF-8");
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CORRUPTED BACKUP");
+        }
+    }
+}
@@ -1,17 +1,29 @@
 package com.spring.library.service;
 
 import com.spring.library.domain.Book;
+import com.spring.library.domain.CatalogEntry;
+import com.spring.library.domain.DomainEventType;
 import com.spring.library.domain.Genre;
+import com.spring.library.dto.BookDto;
+import com.spring.library.dto.BookPreview;
+import com.spring.library.dto.CursorPage;
 import com.spring.library.repos.BookRepo;
+import com.spring.library.repos.CatalogEntryRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,17 +33,91 @@ public class BookService {
     @Value("${upload.path}")
     private String uploadPath;
 
+    @Value("${upload.poster.max-bytes}")
+    private long posterMaxBytes;
+
+    @Value("${upload.poster.max-pixels}")
+    private long posterMaxPixels;
+
+    @Value("${view.chunk-rows}")
+    private int chunkRows;
+
+    @Value("${view.page-size}")
+    private int pageSize;
+
     @Autowired
     private BookRepo bookRepo;
 
+    @Autowired
+    private CatalogEntryRepo catalogEntryRepo;
+
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
 
     private boolean isBookExists(Book book) {
         Book bookFromDb = bookRepo.findByBookNameAndWriter(book.getBookName(), book.getWriter());
         return bookFromDb != null;
     }
 
-    public List<Book> getBookList() {
-        return bookRepo.findAll();
+    @Transactional(readOnly = true)
+    public boolean isBookExists(Long bookId) {
+        return bookRepo.existsById(bookId);
+    }
+
+    /* each chunk is read from the catalog read model with one range scan */
+    public Iterator<CatalogEntry> getBookList() {
+        return new ChunkedIterator<>(catalogEntryRepo::findByIdGreaterThan, CatalogEntry::getId, chunkRows);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookPreview> getWriterBookPreviewPage(Long writerId, Long after) {
+        List<BookPreview> books = singleFlight.load(
+                "writer-books",
+                writerId + ":" + after,
+                () -> bookRepo.findWriterBookPreviews(writerId, after, PageRequest.of(0, pageSize))
+        );
+        return new CursorPage<>(books, pageSize, BookPreview::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public BookDto getBookDto(Long bookId) {
+        BookDto book = bookRepo.findBookDto(bookId);
+        if (book != null) {
+            addGenres(Collections.singletonList(book));
+        }
+
+        return book;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookDto> getBookDtoPage(Long after, int limit) {
+        List<BookDto> books = bookRepo.findBookDtos(after, PageRequest.of(0, limit));
+        addGenres(books);
+        return new CursorPage<>(books, limit, BookDto::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookDto> getWriterBookDtoPage(Long writerId, Long after, int limit) {
+        List<BookDto> books = bookRepo.findWriterBookDtos(writerId, after, PageRequest.of(0, limit));
+        addGenres(books);
+        return new CursorPage<>(books, limit, BookDto::getId);
+    }
+
+    /* one query for the genres of the whole page instead of one per book */
+    private void addGenres(List<BookDto> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+
+        Map<Long, BookDto> booksById = books.stream()
+                .collect(Collectors.toMap(BookDto::getId, book -> book));
+        for (Object[] bookGenre : bookRepo.findGenresByBookIds(booksById.keySet())) {
+            booksById.get((Long) bookGenre[0]).getGenres().add((Genre) bookGenre[1]);
+        }
     }
 
     public Set<Genre> getSelectedGenresFromForm(Map<String, String> form) {
@@ -50,6 +136,7 @@ public class BookService {
     }
 
 
+    @Transactional
     public boolean addNewBook(Book book) {
         if (isBookExists(book)) {
             deletePosterFile(book.getFilename());
@@ -57,9 +144,11 @@ public class BookService {
         }
 
         bookRepo.save(book);
+        domainEventPublisher.publish(DomainEventType.BOOK_ADDED, book.getId(), getWriterId(book));
         return true;
     }
 
+    @Transactional
     public void updateBook(Book currentBook, Book editedBook) {
         boolean isNewPosterFile = !StringUtils.isEmpty(editedBook.getFilename());
         if (isNewPosterFile) {
@@ -74,27 +163,76 @@ public class BookService {
         currentBook.setPublicationDate(editedBook.getPublicationDate());
 
         bookRepo.save(currentBook);
+        domainEventPublisher.publish(DomainEventType.BOOK_UPDATED, currentBook.getId(), getWriterId(currentBook));
     }
 
+    @Transactional
     public void deleteBook(Book book) {
         deletePosterFile(book.getFilename());
         bookRepo.delete(book);
+        domainEventPublisher.publish(DomainEventType.BOOK_DELETED, book.getId(), getWriterId(book));
+    }
+
+    private Long getWriterId(Book book) {
+        return book.getWriter() == null ? null : book.getWriter().getId();
     }
 
 
     public String getPosterFilename(MultipartFile posterFile) {
+        return getPosterFilename(posterFile.getOriginalFilename());
+    }
+
+    public String getPosterFilename(String originalFilename) {
         String uuidFile = UUID.randomUUID().toString();
-        return uuidFile + "." + posterFile.getOriginalFilename();
+        return uuidFile + "." + originalFilename;
     }
 
     public boolean isImage(MultipartFile file) {
-        try {
-            return ImageIO.read(file.getInputStream()) != null;
+        if (file.isEmpty() || file.getSize() > posterMaxBytes) {
+            return false;
+        }
+
+        try (InputStream inputStream = file.getInputStream();
+             ImageInputStream imageStream = ImageIO.createImageInputStream(inputStream)) {
+            return isAcceptableImage(imageStream);
         } catch (IOException e) {
             return false;
         }
     }
 
+    public boolean isImage(File file) {
+        if (!file.isFile() || file.length() > posterMaxBytes) {
+            return false;
+        }
+
+        try (ImageInputStream imageStream = ImageIO.createImageInputStream(file)) {
+            return isAcceptableImage(imageStream);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /* reads only the image header: format and dimensions are checked without decoding any pixels */
+    private boolean isAcceptableImage(ImageInputStream imageStream) throws IOException {
+        if (imageStream == null) {
+            return false;
+        }
+
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+        if (!readers.hasNext()) {
+            return false;
+        }
+
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(imageStream, true, true);
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            return pixels > 0 && pixels <= posterMaxPixels;
+        } finally {
+            reader.dispose();
+        }
+    }
+
     public void loadPosterFile(MultipartFile file, String resultFilename) throws IOException {
         File uploadDir = new File(uploadPath);
         if (!uploadDir.exists()) {
@@ -104,6 +242,15 @@ public class BookService {
         file.transferTo(new File(uploadPath + "/" + resultFilename));
     }
 
+    public void loadPosterFile(File file, String resultFilename) throws IOException {
+        File uploadDir = new File(uploadPath);
+        if (!uploadDir.exists()) {
+            uploadDir.mkdir();
+        }
+
+        Files.move(file.toPath(), new File(uploadPath + "/" + resultFilename).toPath());
+    }
+
     private void deletePosterFile(String filename) {
         String path = uploadPath + "/" + filename;
         File poster = new File(path);
@@ -0,0 +1,146 @@
+package com.spring.library.service;
+
+import com.spring.library.domain.Genre;
+import com.spring.library.domain.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.util.Map;
+
+/*
+ * Maintains catalog_entry, the read model of the book list, in the transaction of every change,
+ * so the catalog commits or rolls back with it.
+ *
+ * The review counts are only ever added to: a transaction that changes reviews adds its own
+ * difference and never reads the review table for it. Counting reviews inside those transactions
+ * would take shared locks on the reviews other transactions are writing for the same book while
+ * holding its catalog row, and two posts on a hot book would deadlock. Book and writer changes
+ * update the other columns from book, writer and book_genre. Only a new book and rebuild(), which
+ * repairs or fills the whole table offline in id ranges, count the reviews.
+ */
+@Service
+public class CatalogService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    private static final String INSERT_ENTRIES = "insert into catalog_entry (" +
+            "book_id, book_name, writer_id, writer_name, genres, " +
+            "review_count, positive_review_count, filename, updated_at) " +
+            "select b.id, b.book_name, w.id, concat(w.last_name, ', ', w.first_name), " +
+            "(select coalesce(sum(" + genreMaskCase() + "), 0) from book_genre g where g.book_id = b.id), " +
+            "(select count(*) from review r where r.book_id = b.id), " +
+            "(select count(*) from review r where r.book_id = b.id and r.assessment = 'POSITIVE'), " +
+            "b.filename, ? " +
+            "from book b left join writer w on w.id = b.writer_id ";
+
+    private static final String UPDATE_BOOK_COLUMNS = "update catalog_entry set " +
+            "book_name = (select b.book_name from book b where b.id = catalog_entry.book_id), " +
+            "writer_id = (select b.writer_id from book b where b.id = catalog_entry.book_id), " +
+            "writer_name = (select concat(w.last_name, ', ', w.first_name) from book b " +
+            "join writer w on w.id = b.writer_id where b.id = catalog_entry.book_id), " +
+            "genres = (select coalesce(sum(" + genreMaskCase() + "), 0) from book_genre g " +
+            "where g.book_id = catalog_entry.book_id), " +
+            "filename = (select b.filename from book b where b.id = catalog_entry.book_id), " +
+            "updated_at = ? " +
+            "where book_id = ?";
+
+    @Value("${catalog.rebuild-batch-size}")
+    private int rebuildBatchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    /* the pending changes of the transaction are flushed first, the selects read them */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onEvent(OutboxEvent event) {
+        entityManager.flush();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        switch (event.getType()) {
+            case BOOK_ADDED:
+                // no row to delete: a delete of a missing key would gap-lock against concurrent adds
+                jdbcTemplate.update(INSERT_ENTRIES + "where b.id = ?", now, event.getAggregateId());
+                break;
+            case BOOK_UPDATED:
+                jdbcTemplate.update(UPDATE_BOOK_COLUMNS, now, event.getAggregateId());
+                break;
+            case BOOK_DELETED:
+                jdbcTemplate.update("delete from catalog_entry where book_id = ?", event.getAggregateId());
+                break;
+            case WRITER_UPDATED:
+                jdbcTemplate.update("update catalog_entry set " +
+                                "writer_name = (select concat(w.last_name, ', ', w.first_name) from writer w where w.id = ?), " +
+                                "updated_at = ? where writer_id = ?",
+                        event.getAggregateId(), now, event.getAggregateId());
+                break;
+            case WRITER_DELETED:
+                jdbcTemplate.update("delete from catalog_entry where writer_id = ?", event.getAggregateId());
+                break;
+            default:
+                // review counts are changed by changeReviewCounts
+
+                break;
+        }
+    }
+
+    /* called by the transaction that changed the reviews of the book, which holds its catalog row until the commit */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void changeReviewCounts(Long bookId, int reviews, int positiveReviews) {
+        jdbcTemplate.update("update catalog_entry set review_count = review_count + ?, " +
+                        "positive_review_count = positive_review_count + ?, updated_at = ? where book_id = ?",
+                reviews, positiveReviews, new Timestamp(System.currentTimeMillis()), bookId);
+    }
+
+    /* one transaction per id range, so a rebuild of a large catalog does not hold one long transaction */
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("select min(id) as first_id, max(id) as last_id from book");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        if (bounds.get("first_id") != null) {
+            long firstId = ((Number) bounds.get("first_id")).longValue();
+            long lastId = ((Number) bounds.get("last_id")).longValue();
+            for (long start = firstId; start <= lastId; start += rebuildBatchSize) {
+                long from = start;
+                long to = start + rebuildBatchSize - 1;
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                transactionTemplate.execute(status -> {
+                    jdbcTemplate.update("delete from catalog_entry where book_id between ? and ?", from, to);
+                    return jdbcTemplate.update(INSERT_ENTRIES + "where b.id between ? and ?", now, from, to);
+                });
+            }
+        }
+
+        int orphans = jdbcTemplate.update("delete from catalog_entry where book_id not in (select id from book)");
+        log.info("Rebuilt the catalog in {} ms, removed {} entries of deleted books",
+                System.currentTimeMillis() - startTime, orphans);
+    }
+
+
+    private static String genreMaskCase() {
+        StringBuilder sql = new StringBuilder("case g.genres");
+        for (Genre genre : Genre.values()) {
+            sql.append(" when '").append(genre.name()).append("' then ").append(1 << genre.ordinal());
+        }
+        return sql.append(" else 0 end").toString();
+    }
+}
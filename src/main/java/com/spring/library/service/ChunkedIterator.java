@@ -0,0 +1,55 @@
+package com.spring.library.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+ * Walks a result set in id order, one chunk per query (keyset paging),
+ * so a template can start writing rows before the whole list is loaded.
+ */
+public class ChunkedIterator<T> implements Iterator<T> {
+    private final BiFunction<Long, Pageable, List<T>> chunkLoader;
+    private final Function<T, Long> idGetter;
+    private final Pageable chunk;
+
+    private Iterator<T> currentChunk = Collections.emptyIterator();
+    private Long lastId = 0L;
+    private boolean isLastChunkLoaded;
+
+    public ChunkedIterator(BiFunction<Long, Pageable, List<T>> chunkLoader, Function<T, Long> idGetter, int chunkSize) {
+        this.chunkLoader = chunkLoader;
+        this.idGetter = idGetter;
+        this.chunk = PageRequest.of(0, chunkSize, Sort.by("id"));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentChunk.hasNext() && !isLastChunkLoaded) {
+            List<T> items = chunkLoader.apply(lastId, chunk);
+            isLastChunkLoaded = items.size() < chunk.getPageSize();
+            if (!items.isEmpty()) {
+                lastId = idGetter.apply(items.get(items.size() - 1));
+            }
+            currentChunk = items.iterator();
+        }
+
+        return currentChunk.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return currentChunk.next();
+    }
+}
@@ -0,0 +1,36 @@
+package com.spring.library.service;
+
+import com.spring.library.domain.DomainEventType;
+import com.spring.library.domain.OutboxEvent;
+import com.spring.library.repos.OutboxEventRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class DomainEventPublisher {
+
+    @Autowired
+    private OutboxEventRepo outboxEventRepo;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+
+    /*
+     * only inside the transaction of the change, so the event is committed or rolled back with it;
+     * local @TransactionalEventListener beans see it right after the commit, subscribers from the outbox
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEventType type, Long aggregateId, Long parentId) {
+        OutboxEvent event = outboxEventRepo.save(new OutboxEvent(type, aggregateId, parentId));
+        applicationEventPublisher.publishEvent(event);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEventType type, Long aggregateId) {
+        publish(type, aggregateId, null);
+    }
+}
@@ -0,0 +1,18 @@
+package com.spring.library.service;
+
+import com.spring.library.domain.OutboxEvent;
+
+/*
+ * Receives every outbox event in id order, off the request thread; an event it failed on
+ * comes again after a backoff and the later ones wait for it, until it is delivered or dead.
+ * Delivery is at least once, so handling an event twice must be harmless.
+ *
+ * The application itself has no subscriber: the catalog, the entity cache and the audit log
+ * need the event inside the writing transaction, on every node or right after the commit,
+ * which a delayed delivery to one node does not give. This is the extension point for
+ * integrations outside the database (mail, a search index); until there is one the events
+ * are only marked dispatched.
+ */
+public interface DomainEventSubscriber {
+    void onEvent(OutboxEvent event);
+}
@@ -0,0 +1,100 @@
+package com.spring.library.service;
+
+import com.spring.library.domain.OutboxEvent;
+import com.spring.library.repos.OutboxEventRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Evicts the entity cache of this node for changes made on every node.
+ *
+ * outbox_event is the change log: each poll reads the events past the highest id seen so far,
+ * in batches. Ids are taken when a transaction inserts its event, not when it commits, so a
+ * missing id may still show up; such gaps are looked up again until they appear or get too
+ * old (the transaction was rolled back). When the change log cannot be read the whole cache
+ * is dropped; entity-cache.ttl-millis stays the upper bound of staleness either way.
+ */
+@Component
+public class EntityCacheInvalidator {
+    private static final Logger log = LoggerFactory.getLogger(EntityCacheInvalidator.class);
+
+    @Value("${entity-cache.invalidation.batch-size}")
+    private int batchSize;
+
+    @Value("${entity-cache.invalidation.gap-timeout-millis}")
+    private long gapTimeoutMillis;
+
+    @Autowired
+    private OutboxEventRepo outboxEventRepo;
+
+    @Autowired
+    private EntityResolver entityResolver;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long lastEventId;
+
+    // missing event id -> when it was first missed
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+
+    @Scheduled(fixedDelayString = "${entity-cache.invalidation.poll-millis}")
+    public void poll() {
+        try {
+            if (lastEventId == null) {
+                // nothing is cached before the first poll, older changes do not matter
+                Long maxId = outboxEventRepo.findMaxId();
+                lastEventId = maxId == null ? 0L : maxId;
+                return;
+            }
+
+            evictGaps();
+            List<OutboxEvent> events;
+            do {
+                events = outboxEventRepo.findByIdGreaterThan(lastEventId, PageRequest.of(0, batchSize, Sort.by("id")));
+                for (OutboxEvent event : events) {
+                    // a jump wider than a batch is not an open transaction but skipped ids
+                    long firstMissingId = Math.max(lastEventId + 1, event.getId() - batchSize);
+                    for (long missingId = firstMissingId; missingId < event.getId(); missingId++) {
+                        gaps.put(missingId, System.currentTimeMillis());
+                    }
+                    entityResolver.evict(event);
+                    lastEventId = event.getId();
+                }
+                meterRegistry.counter("library.entity.cache.invalidations").increment(events.size());
+            } while (events.size() == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Cannot read the change log, the entity cache is dropped", e);
+            entityResolver.evictAll();
+        }
+    }
+
+
+    private void evictGaps() {
+        if (gaps.isEmpty()) {
+            return;
+        }
+
+        for (OutboxEvent event : outboxEventRepo.findAllById(new ArrayList<>(gaps.keySet()))) {
+            entityResolver.evict(event);
+            gaps.remove(event.getId());
+        }
+
+        long expiredBefore = System.currentTimeMillis() - gapTimeoutMillis;
+        gaps.values().removeIf(missedAt -> missedAt < expiredBefore);
+    }
+}
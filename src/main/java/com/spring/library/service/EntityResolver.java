@@ -0,0 +1,369 @@
+package com.spring.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.library.domain.*;
+import com.spring.library.repos.BookRepo;
+import com.spring.library.repos.ReviewRepo;
+import com.spring.library.repos.UserRepo;
+import com.spring.library.repos.WriterRepo;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Looks up the entities named by path variables (and form fields bound to entities).
+ *
+ * Every entity found for a request is kept in a request attribute, so one id is loaded once
+ * per request, and the book and author of a review are taken from the review itself.
+ * GET requests also read a short-lived cache shared by all requests, and a replica when it
+ * misses; the cache and the requests only ever exchange copies, so whatever a request does to
+ * its entities stays in that request. Writes always load fresh entities from the primary,
+ * because controllers modify the entities they receive.
+ *
+ * Every eviction bumps a generation of the evicted type first; entities are only cached when
+ * their type has not been evicted since they were read, so a GET that loaded a row just before
+ * it changed cannot put it back for the whole ttl.
+ */
+@Component
+public class EntityResolver {
+    private static final String REQUEST_ENTITIES = EntityResolver.class.getName() + ".entities";
+
+    public static final List<Class<?>> ENTITY_TYPES =
+            Collections.unmodifiableList(Arrays.asList(Review.class, Book.class, User.class, Writer.class));
+
+    @Value("${entity-cache.ttl-millis}")
+    private long cacheTtlMillis;
+
+    @Value("${entity-cache.max-size}")
+    private long cacheMaxSize;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private WriterRepo writerRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private ReviewRepo reviewRepo;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Cache<String, Object> cache;
+
+    private final AtomicLongArray generations = new AtomicLongArray(ENTITY_TYPES.size());
+
+
+    @PostConstruct
+    public void createCache() {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+
+    /* loads all ids of a request with one query per entity type, reviews first */
+    public void prefetch(Map<Class<?>, Set<Long>> idsByType, boolean isCacheable) {
+        Map<String, Object> entities = getRequestEntities();
+        if (entities == null) {
+            return;
+        }
+
+        transactionTemplate(isCacheable).execute(status -> {
+            load(entities, idsByType, isCacheable);
+            return null;
+        });
+    }
+
+    /* null when there is no such entity, as with Spring Data's converter */
+    @SuppressWarnings("unchecked")
+    public <T> T resolve(Class<T> type, Long id, boolean isCacheable) {
+        Map<String, Object> entities = getRequestEntities();
+        if (entities != null && (entities.containsKey(key(type, id)) || isCacheable && addFromCache(entities, type, id))) {
+            return (T) entities.get(key(type, id));
+        }
+
+        prefetch(Collections.singletonMap(type, Collections.singleton(id)), isCacheable);
+        if (entities != null) {
+            return (T) entities.get(key(type, id));
+        }
+        List<?> found = transactionTemplate(isCacheable).execute(status -> findAllById(type, Collections.singleton(id)));
+        return found.isEmpty() ? null : (T) found.get(0);
+    }
+
+    /* entities cached by other requests may also hold the changed one, so whole types are dropped */
+    @TransactionalEventListener
+    public void evict(OutboxEvent event) {
+        switch (event.getType()) {
+            case BOOK_UPDATED:
+            case BOOK_DELETED:
+                invalidate(Book.class, event.getAggregateId());
+                evictType(Review.class);
+                break;
+            case BOOK_REVIEWS_DELETED:
+                evictType(Review.class);
+                break;
+            case WRITER_UPDATED:
+            case WRITER_DELETED:
+                invalidate(Writer.class, event.getAggregateId());
+                evictType(Book.class);
+                evictType(Review.class);
+                break;
+            case REVIEW_UPDATED:
+            case REVIEW_DELETED:
+                invalidate(Review.class, event.getAggregateId());
+                break;
+            case USER_UPDATED:
+            case USER_ROLES_UPDATED:
+            case USER_DELETED:
+                invalidate(User.class, event.getAggregateId());
+                evictType(Review.class);
+                break;
+            case BACKUP_RESTORED:
+                evictAll();
+                break;
+            default:
+                // nothing cached can refer to an entity that did not exist
+                break;
+        }
+    }
+
+    public void evictAll() {
+        for (int i = 0; i < generations.length(); i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+
+    private void load(Map<String, Object> entities, Map<Class<?>, Set<Long>> idsByType, boolean isCacheable) {
+        for (Class<?> type : ENTITY_TYPES) {
+            Set<Long> ids = new HashSet<>(idsByType.getOrDefault(type, Collections.emptySet()));
+            ids.removeIf(id -> entities.containsKey(key(type, id)));
+            if (isCacheable) {
+                ids.removeIf(id -> addFromCache(entities, type, id));
+            }
+            if (ids.isEmpty()) {
+                continue;
+            }
+
+            if (isCacheable) {
+                // a hot book linked from everywhere is loaded once for all the requests that miss together;
+                // the generations are those of the shared read, not of the requests that joined it later
+                Loaded loaded = singleFlight.load("entities", type.getSimpleName() + new TreeSet<>(ids),
+                        () -> new Loaded(currentGenerations(), findAllById(type, ids)));
+                for (Object entity : loaded.entities) {
+                    add(entities, entity, loaded.generations);
+                }
+            } else {
+                for (Object entity : findAllById(type, ids)) {
+                    add(entities, entity, null);
+                }
+            }
+        }
+    }
+
+    /* reads may come from a replica, a write request must see the rows as they are on the primary */
+    private TransactionTemplate transactionTemplate(boolean isCacheable) {
+        return isCacheable ? readOnlyTransactionTemplate : new TransactionTemplate(transactionManager);
+    }
+
+    private List<?> findAllById(Class<?> type, Set<Long> ids) {
+        if (type == Review.class) {
+            return reviewRepo.findAllById(ids);
+        } else if (type == Book.class) {
+            return bookRepo.findAllById(ids);
+        } else if (type == User.class) {
+            return userRepo.findAllById(ids);
+        } else if (type == Writer.class) {
+            return writerRepo.findAllById(ids);
+        }
+        throw new IllegalArgumentException("Not an entity: " + type);
+    }
+
+    /* readGenerations is null for entities loaded for a write, those are never cached */
+    private void add(Map<String, Object> entities, Object loadedEntity, long[] readGenerations) {
+        Object entity = Hibernate.unproxy(loadedEntity);
+        String key = key(entity.getClass(), getId(entity));
+        if (readGenerations != null) {
+            // a single flight hands the same loaded entities to several requests
+            cacheIfCurrent(key, entity, readGenerations);
+            copy(entity, entities);
+        } else {
+            entities.put(key, entity);
+        }
+
+        if (entity instanceof Review) {
+            Review review = (Review) entity;
+            add(entities, review.getBook(), readGenerations);
+            add(entities, review.getAuthor(), readGenerations);
+        } else if (entity instanceof Book && ((Book) entity).getWriter() != null) {
+            add(entities, ((Book) entity).getWriter(), readGenerations);
+        }
+    }
+
+    /* checked again after the put: an eviction between the check and the put removes the entry itself */
+    private void cacheIfCurrent(String key, Object entity, long[] readGenerations) {
+        int type = ENTITY_TYPES.indexOf(entity.getClass());
+        if (generations.get(type) != readGenerations[type]) {
+            return;
+        }
+
+        cache.put(key, copy(entity, new HashMap<>()));
+        if (generations.get(type) != readGenerations[type]) {
+            cache.invalidate(key);
+        }
+    }
+
+    private long[] currentGenerations() {
+        long[] current = new long[generations.length()];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = generations.get(i);
+        }
+        return current;
+    }
+
+    private void invalidate(Class<?> type, Long id) {
+        generations.incrementAndGet(ENTITY_TYPES.indexOf(type));
+        cache.invalidate(key(type, id));
+    }
+
+    private boolean addFromCache(Map<String, Object> entities, Class<?> type, Long id) {
+        Object entity = cache.getIfPresent(key(type, id));
+        if (entity == null) {
+            return false;
+        }
+
+        copy(entity, entities);
+        return true;
+    }
+
+    private void evictType(Class<?> type) {
+        generations.incrementAndGet(ENTITY_TYPES.indexOf(type));
+        String prefix = type.getSimpleName() + ":";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getRequestEntities() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<String, Object> entities = (Map<String, Object>) attributes.getAttribute(REQUEST_ENTITIES, RequestAttributes.SCOPE_REQUEST);
+        if (entities == null) {
+            entities = new HashMap<>();
+            attributes.setAttribute(REQUEST_ENTITIES, entities, RequestAttributes.SCOPE_REQUEST);
+        }
+        return entities;
+    }
+
+    /*
+     * a copy of the entity and of the entities it refers to, reusing the copies already made;
+     * collections that were never loaded stay unloaded
+     */
+    private static Object copy(Object loadedEntity, Map<String, Object> copies) {
+        Object entity = Hibernate.unproxy(loadedEntity);
+        String key = key(entity.getClass(), getId(entity));
+        if (copies.containsKey(key)) {
+            return copies.get(key);
+        }
+
+        if (entity instanceof Review) {
+            Review review = (Review) entity;
+            Review copy = new Review();
+            copies.put(key, copy);
+            copy.setId(review.getId());
+            copy.setText(review.getText());
+            copy.setAssessment(review.getAssessment());
+            copy.setBook(review.getBook() == null ? null : (Book) copy(review.getBook(), copies));
+            copy.setAuthor(review.getAuthor() == null ? null : (User) copy(review.getAuthor(), copies));
+            return copy;
+        } else if (entity instanceof Book) {
+            Book book = (Book) entity;
+            Book copy = new Book();
+            copies.put(key, copy);
+            copy.setId(book.getId());
+            copy.setBookName(book.getBookName());
+            copy.setAnnotation(book.getAnnotation());
+            copy.setPublicationDate(book.getPublicationDate() == null ? null : new Date(book.getPublicationDate().getTime()));
+            copy.setFilename(book.getFilename());
+            copy.setGenres(copyOf(book.getGenres()));
+            copy.setReviews(copyOf(book.getReviews()));
+            copy.setWriter(book.getWriter() == null ? null : (Writer) copy(book.getWriter(), copies));
+            return copy;
+        } else if (entity instanceof User) {
+            User user = (User) entity;
+            User copy = new User();
+            copies.put(key, copy);
+            copy.setId(user.getId());
+            copy.setUsername(user.getUsername());
+            copy.setPassword(user.getPassword());
+            copy.setActive(user.isActive());
+            copy.setRoles(copyOf(user.getRoles()));
+            copy.setReviews(copyOf(user.getReviews()));
+            return copy;
+        }
+
+        Writer writer = (Writer) entity;
+        Writer copy = new Writer();
+        copies.put(key, copy);
+        copy.setId(writer.getId());
+        copy.setFirstName(writer.getFirstName());
+        copy.setLastName(writer.getLastName());
+        copy.setBooks(copyOf(writer.getBooks()));
+        return copy;
+    }
+
+    private static class Loaded {
+        final long[] generations;
+        final List<?> entities;
+
+        Loaded(long[] generations, List<?> entities) {
+            this.generations = generations;
+            this.entities = entities;
+        }
+    }
+
+    private static <E> Set<E> copyOf(Set<E> set) {
+        return set == null || !Hibernate.isInitialized(set) ? set : new HashSet<>(set);
+    }
+
+    private static Long getId(Object entity) {
+        if (entity instanceof Review) {
+            return ((Review) entity).getId();
+        } else if (entity instanceof Book) {
+            return ((Book) entity).getId();
+        } else if (entity instanceof User) {
+            return ((User) entity).getId();
+        }
+        return ((Writer) entity).getId();
+    }
+
+    private static String key(Class<?> type, Long id) {
+        return type.getSimpleName() + ":" + id;
+    }
+}
@@ -0,0 +1,225 @@
+package com.spring.library.service;
+
+import com.spring.library.domain.OutboxDelivery;
+import com.spring.library.domain.OutboxDeliveryStatus;
+import com.spring.library.domain.OutboxEvent;
+import com.spring.library.repos.OutboxDeliveryRepo;
+import com.spring.library.repos.OutboxEventRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+ * Delivers the outbox to every subscriber, at least once, on the event executor.
+ *
+ * Undispatched events are claimed by one node and fanned out to one outbox_delivery row per
+ * subscriber in the transaction that marks them dispatched. Every subscriber then works off its
+ * own due deliveries in event order, again under a claim that expires after outbox.claim-seconds,
+ * so a node that dies mid-batch only delays them. A delivery that throws is tried again after a
+ * doubling backoff, and the later events of that subscriber wait for it: it is dead after
+ * outbox.max-attempts and skipped from then on. A failing subscriber never holds up the others.
+ */
+@Component
+public class OutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    @Value("${outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${outbox.retention-hours}")
+    private long retentionHours;
+
+    @Value("${outbox.claim-seconds}")
+    private long claimSeconds;
+
+    @Value("${outbox.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${outbox.backoff-millis}")
+    private long backoffMillis;
+
+    @Value("${outbox.max-backoff-millis}")
+    private long maxBackoffMillis;
+
+    @Autowired
+    private OutboxEventRepo outboxEventRepo;
+
+    @Autowired
+    private OutboxDeliveryRepo outboxDeliveryRepo;
+
+    @Autowired
+    private ThreadPoolTaskExecutor domainEventExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private List<DomainEventSubscriber> subscribers = Collections.emptyList();
+
+
+    @Scheduled(fixedDelayString = "${outbox.poll-millis}")
+    public void dispatch() {
+        int claimed;
+        do {
+            claimed = fanOut();
+        } while (claimed == batchSize);
+
+        List<Future<?>> deliveries = new ArrayList<>();
+        for (DomainEventSubscriber subscriber : subscribers) {
+            deliveries.add(domainEventExecutor.submit(() -> deliverDue(subscriber)));
+        }
+
+        for (Future<?> delivery : deliveries) {
+            try {
+                delivery.get();
+            } catch (ExecutionException e) {
+                log.warn("Outbox deliveries could not be recorded, they are taken again once their claim expires",
+                        e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-millis}")
+    public void removeDispatchedEvents() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours));
+        outboxDeliveryRepo.deleteDeliveredBefore(before);
+        outboxEventRepo.deleteDispatchedBefore(before);
+    }
+
+
+    /* on the primary: a concurrent claim of the same rows waits for this commit and then skips them */
+    private int fanOut() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> {
+            Date now = new Date();
+            List<Long> ids = outboxEventRepo.findClaimableIds(now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            String claim = UUID.randomUUID().toString();
+            outboxEventRepo.claim(ids, claim, claimedUntil(now), now);
+            List<OutboxEvent> events = outboxEventRepo.findClaimed(claim);
+            if (!events.isEmpty()) {
+                List<OutboxDelivery> deliveries = new ArrayList<>();
+                for (OutboxEvent event : events) {
+                    for (DomainEventSubscriber subscriber : subscribers) {
+                        deliveries.add(new OutboxDelivery(event, subscriberName(subscriber)));
+                    }
+                }
+                outboxDeliveryRepo.saveAll(deliveries);
+                outboxEventRepo.markDispatched(events.stream()
+                        .map(OutboxEvent::getId)
+                        .collect(Collectors.toList()));
+            }
+            return ids.size();
+        });
+    }
+
+    private void deliverDue(DomainEventSubscriber subscriber) {
+        String name = subscriberName(subscriber);
+        List<OutboxDelivery> deliveries;
+        do {
+            deliveries = claimDue(name);
+
+            List<Long> delivered = new ArrayList<>();
+            List<Long> held = new ArrayList<>();
+            boolean isBackingOff = false;
+            for (OutboxDelivery delivery : deliveries) {
+                if (isBackingOff) {
+                    // waits behind the failed one, unclaimed so the next attempt takes them in order
+                    held.add(delivery.getId());
+                    continue;
+                }
+                try {
+                    subscriber.onEvent(delivery.getEvent());
+                    delivered.add(delivery.getId());
+                } catch (RuntimeException e) {
+                    isBackingOff = !recordFailure(name, delivery, e);
+                }
+            }
+
+            if (!delivered.isEmpty()) {
+                outboxDeliveryRepo.markDelivered(delivered);
+                meterRegistry.counter("library.outbox.deliveries", "result", "delivered").increment(delivered.size());
+            }
+            if (!held.isEmpty()) {
+                outboxDeliveryRepo.release(held);
+            }
+            if (isBackingOff) {
+                return;
+            }
+        } while (deliveries.size() == batchSize);
+    }
+
+    private List<OutboxDelivery> claimDue(String subscriber) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> {
+            Date now = new Date();
+            List<Long> ids = outboxDeliveryRepo.findDueIds(subscriber, now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return Collections.<OutboxDelivery>emptyList();
+            }
+
+            String claim = UUID.randomUUID().toString();
+            outboxDeliveryRepo.claim(ids, claim, claimedUntil(now), now);
+            return outboxDeliveryRepo.findClaimed(subscriber, claim);
+        });
+    }
+
+    /* false when the delivery will be tried again */
+    private boolean recordFailure(String subscriber, OutboxDelivery delivery, RuntimeException e) {
+        int attempts = delivery.getAttempts() + 1;
+        String error = e.toString();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+
+        if (attempts >= maxAttempts) {
+            log.error("Outbox event {} is dead for {} after {} attempts",
+                    delivery.getEvent().getId(), subscriber, attempts, e);
+            outboxDeliveryRepo.markFailed(delivery.getId(), OutboxDeliveryStatus.DEAD, new Date(), error);
+            meterRegistry.counter("library.outbox.deliveries", "result", "dead").increment();
+            return true;
+        }
+
+        long backoff = Math.min(maxBackoffMillis, backoffMillis << Math.min(delivery.getAttempts(), 30));
+        log.warn("Outbox event {} failed for {}, attempt {} of {}, next in {} ms",
+                delivery.getEvent().getId(), subscriber, attempts, maxAttempts, backoff, e);
+        outboxDeliveryRepo.markFailed(delivery.getId(), OutboxDeliveryStatus.PENDING,
+                new Date(System.currentTimeMillis() + backoff), error);
+        meterRegistry.counter("library.outbox.deliveries", "result", "retried").increment();
+        return false;
+    }
+
+    private Date claimedUntil(Date now) {
+        return new Date(now.getTime() + TimeUnit.SECONDS.toMillis(claimSeconds));
+    }
+
+    // proxies of the same bean must keep their deliveries
+    private static String subscriberName(DomainEventSubscriber subscriber) {
+        return ClassUtils.getUserClass(subscriber).getName();
+    }
+}
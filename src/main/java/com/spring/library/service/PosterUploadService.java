@@ -0,0 +1,342 @@
+package com.spring.library.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+public class PosterUploadService {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${upload.path}")
+    private String uploadPath;
+
+    @Value("${upload.poster.max-bytes}")
+    private long posterMaxBytes;
+
+    @Value("${upload.chunk.size}")
+    private int chunkSize;
+
+    @Value("${upload.chunk.ttl-minutes}")
+    private long uploadTtlMinutes;
+
+    @Autowired
+    private BookService bookService;
+
+    private final Map<String, PosterUpload> uploads = new ConcurrentHashMap<>();
+
+
+    public PosterUpload startUpload(String originalFilename, long size, String sha256) throws IOException {
+        if (StringUtils.isEmpty(originalFilename) || StringUtils.isEmpty(sha256)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "FILENAME AND CHECKSUM ARE REQUIRED");
+        }
+        if (size <= 0 || size > posterMaxBytes) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "POSTER SIZE IS NOT ALLOWED");
+        }
+
+        File partialDir = new File(uploadPath, ".partial");
+        if (!partialDir.exists()) {
+            partialDir.mkdirs();
+        }
+
+        String token = UUID.randomUUID().toString();
+        Path partialFile = new File(partialDir, token + ".part").toPath();
+        try (FileChannel channel = FileChannel.open(partialFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        }
+
+        PosterUpload upload = new PosterUpload(token, originalFilename, size, chunkSize, sha256, partialFile);
+        uploads.put(token, upload);
+        return upload;
+    }
+
+    public PosterUpload getUpload(String token) {
+        PosterUpload upload = uploads.get(token);
+        if (upload == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "UPLOAD NOT FOUND");
+        }
+
+        upload.touch();
+        return upload;
+    }
+
+    /*
+     * Chunks of one upload are written in parallel under the read lock, completion and expiry
+     * take the write lock, so no chunk can rewrite the file while it is hashed, moved or deleted.
+     */
+    public void writeChunk(String token, int index, InputStream body) throws IOException {
+        PosterUpload upload = getUpload(token);
+        upload.lock.readLock().lock();
+        try {
+            writeChunk(upload, index, body);
+        } finally {
+            upload.touch();
+            upload.lock.readLock().unlock();
+        }
+    }
+
+    private void writeChunk(PosterUpload upload, int index, InputStream body) throws IOException {
+        if (upload.isExpired()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "UPLOAD NOT FOUND");
+        }
+        if (upload.isCompleted()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "UPLOAD ALREADY COMPLETED");
+        }
+        if (index < 0 || index >= upload.getChunkCount()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CHUNK INDEX OUT OF RANGE");
+        }
+
+        long position = (long) index * upload.getChunkSize();
+        long expectedLength = Math.min(upload.getChunkSize(), upload.getSize() - position);
+        long written = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        try (ReadableByteChannel source = Channels.newChannel(body);
+             FileChannel target = FileChannel.open(upload.getPartialFile(), StandardOpenOption.WRITE)) {
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                written += buffer.remaining();
+                if (written > expectedLength) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CHUNK TOO LARGE");
+                }
+                while (buffer.hasRemaining()) {
+                    position += target.write(buffer, position);
+                }
+                buffer.clear();
+            }
+        }
+
+        if (written != expectedLength) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "INCOMPLETE CHUNK");
+        }
+
+        upload.markReceived(index);
+    }
+
+    public PosterUpload completeUpload(String token) throws IOException {
+        PosterUpload upload = getUpload(token);
+        upload.lock.writeLock().lock();
+        try {
+            if (upload.isExpired()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "UPLOAD NOT FOUND");
+            }
+            if (upload.isCompleted()) {
+                return upload;
+            }
+            if (upload.getMissingChunk() != -1) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "UPLOAD HAS MISSING CHUNKS");
+            }
+
+            File partialFile = upload.getPartialFile().toFile();
+            boolean isCorrectPoster = upload.getSha256().equalsIgnoreCase(sha256(upload.getPartialFile()))
+                    && bookService.isImage(partialFile);
+            if (!isCorrectPoster) {
+                uploads.remove(token);
+                partialFile.delete();
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "INCORRECT POSTER FILE");
+            }
+
+            String posterFilename = bookService.getPosterFilename(upload.getOriginalFilename());
+            bookService.loadPosterFile(partialFile, posterFilename);
+            upload.complete(posterFilename);
+        } finally {
+            upload.touch();
+            upload.lock.writeLock().unlock();
+        }
+
+        return upload;
+    }
+
+    public boolean isCompletedUpload(String token) {
+        PosterUpload upload = uploads.get(token);
+        return upload != null && upload.isCompleted();
+    }
+
+    /*
+     * The poster now belongs to a book, so the token cannot be used again. Null when the upload
+     * expired after it was checked: its poster is already deleted.
+     */
+    public String takePosterFilename(String token) {
+        PosterUpload upload = uploads.remove(token);
+        return upload == null ? null : upload.getPosterFilename();
+    }
+
+
+    /*
+     * An upload expires upload.chunk.ttl-minutes after its last chunk, completion or status request.
+     * A completed upload that was never taken by a book leaves an orphaned poster, which is deleted too.
+     */
+    @Scheduled(fixedDelayString = "${upload.chunk.cleanup-millis}")
+    public void removeExpiredUploads() {
+        long expiredBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(uploadTtlMinutes);
+        for (PosterUpload upload : uploads.values()) {
+            if (upload.getLastAccessAt() >= expiredBefore || !upload.lock.writeLock().tryLock()) {
+                continue;
+            }
+            try {
+                // a book may have taken the upload, or a chunk touched it, since it was looked at
+                if (upload.getLastAccessAt() < expiredBefore && uploads.remove(upload.getToken(), upload)) {
+                    upload.expire();
+                    if (upload.isCompleted()) {
+                        new File(uploadPath, upload.getPosterFilename()).delete();
+                    } else {
+                        upload.getPartialFile().toFile().delete();
+                    }
+                }
+            } finally {
+                upload.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+
+    public static class PosterUpload {
+        private final String token;
+        private final String originalFilename;
+        private final long size;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final String sha256;
+        private final Path partialFile;
+        private final long createdAt = System.currentTimeMillis();
+        private final BitSet receivedChunks;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile long lastAccessAt = createdAt;
+        private volatile boolean isExpired;
+        private volatile String posterFilename;
+
+        PosterUpload(String token, String originalFilename, long size, int chunkSize, String sha256, Path partialFile) {
+            this.token = token;
+            this.originalFilename = originalFilename;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            this.sha256 = sha256;
+            this.partialFile = partialFile;
+            this.receivedChunks = new BitSet(chunkCount);
+        }
+
+        synchronized void markReceived(int index) {
+            receivedChunks.set(index);
+        }
+
+        /* -1 when every chunk has been received */
+        public synchronized int getMissingChunk() {
+            int missing = receivedChunks.nextClearBit(0);
+            return missing < chunkCount ? missing : -1;
+        }
+
+        public synchronized int getReceivedChunkCount() {
+            return receivedChunks.cardinality();
+        }
+
+        void complete(String posterFilename) {
+            this.posterFilename = posterFilename;
+        }
+
+        void touch() {
+            lastAccessAt = System.currentTimeMillis();
+        }
+
+        void expire() {
+            isExpired = true;
+        }
+
+        boolean isExpired() {
+            return isExpired;
+        }
+
+        public boolean isCompleted() {
+            return posterFilename != null;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getOriginalFilename() {
+            return originalFilename;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public int getChunkCount() {
+            return chunkCount;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public Path getPartialFile() {
+            return partialFile;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getLastAccessAt() {
+            return lastAccessAt;
+        }
+
+        public String getPosterFilename() {
+            return posterFilename;
+        }
+    }
+}
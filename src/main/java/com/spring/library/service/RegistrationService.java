@@ -1,11 +1,13 @@
 package com.spring.library.service;
 
+import com.spring.library.domain.DomainEventType;
 import com.spring.library.domain.Role;
 import com.spring.library.domain.User;
 import com.spring.library.repos.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.Collections;
@@ -21,6 +23,9 @@ public class RegistrationService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+
 
     public Map<String, Object> hasErrorsInPasswords(User user, String passwordConfirm) {
         Map<String, Object> passwordErrorsMap = new HashMap<>();
@@ -38,6 +43,7 @@ public class RegistrationService {
         return passwordErrorsMap;
     }
 
+    @Transactional
     public boolean registerUser(User newUser) {
         if (isUserExists(newUser.getUsername())) {
             return false;
@@ -47,6 +53,7 @@ public class RegistrationService {
         newUser.setRoles(Collections.singleton(Role.USER));
         newUser.setPassword(passwordEncoder.encode(newUser.getPassword()));
         userRepo.save(newUser);
+        domainEventPublisher.publish(DomainEventType.USER_REGISTERED, newUser.getId());
 
         return true;
     }
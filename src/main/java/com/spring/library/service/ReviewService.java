@@ -1,21 +1,70 @@
 package com.spring.library.service;
 
+import com.spring.library.domain.Assessment;
 import com.spring.library.domain.Book;
+import com.spring.library.domain.DomainEventType;
 import com.spring.library.domain.Review;
 import com.spring.library.domain.User;
+import com.spring.library.dto.CursorPage;
+import com.spring.library.dto.ReviewDto;
 import com.spring.library.repos.ReviewRepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Iterator;
+import java.util.List;
+
 @Service
 public class ReviewService {
 
     @Autowired
     private ReviewRepo reviewRepo;
 
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Value("${view.chunk-rows}")
+    private int chunkRows;
+
+
+    public Iterator<Review> getBookReviewList(Book book) {
+        return new ChunkedIterator<>(
+                (lastId, chunk) -> singleFlight.load(
+                        "book-reviews",
+                        book.getId() + ":" + lastId,
+                        () -> reviewRepo.findByBookAndIdGreaterThan(book, lastId, chunk)
+                ),
+                Review::getId,
+                chunkRows
+        );
+    }
 
+    public Iterator<Review> getUserReviewList(User user) {
+        return new ChunkedIterator<>(
+                (lastId, chunk) -> reviewRepo.findByAuthorAndIdGreaterThan(user, lastId, chunk),
+                Review::getId,
+                chunkRows
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewDto> getBookReviewDtoPage(Long bookId, Long after, int limit) {
+        List<ReviewDto> reviews = reviewRepo.findBookReviewDtos(bookId, after, PageRequest.of(0, limit));
+        return new CursorPage<>(reviews, limit, ReviewDto::getId);
+    }
+
+    @Transactional
     public boolean addNewReview(Long userId, Long bookId, Review review) {
         Review reviewFromUser = reviewRepo.findByAuthor_IdAndBook_Id(userId, bookId);
 
@@ -24,19 +73,28 @@ public class ReviewService {
         }
 
         reviewRepo.save(review);
+        catalogService.changeReviewCounts(bookId, 1, positive(review.getAssessment()));
+        domainEventPublisher.publish(DomainEventType.REVIEW_ADDED, review.getId(), bookId);
         return true;
 
     }
 
+    @Transactional
     public void updateUserReview(Review userReview, Review editedReview) {
+        int positiveChange = positive(editedReview.getAssessment()) - positive(userReview.getAssessment());
         userReview.setText(editedReview.getText());
         userReview.setAssessment(editedReview.getAssessment());
         reviewRepo.save(userReview);
+        catalogService.changeReviewCounts(userReview.getBook().getId(), 0, positiveChange);
+        domainEventPublisher.publish(DomainEventType.REVIEW_UPDATED, userReview.getId(), userReview.getBook().getId());
     }
 
 
+    @Transactional
     public void deleteUserReview(Review review) {
         reviewRepo.delete(review);
+        catalogService.changeReviewCounts(review.getBook().getId(), -1, -positive(review.getAssessment()));
+        domainEventPublisher.publish(DomainEventType.REVIEW_DELETED, review.getId(), review.getBook().getId());
     }
 
 
@@ -74,4 +132,8 @@ public class ReviewService {
     private boolean isReviewBelongsBook(Long bookId, Review review) {
         return review.getBook().getId().equals(bookId);
     }
+
+    static int positive(Assessment assessment) {
+        return assessment == Assessment.POSITIVE ? 1 : 0;
+    }
 }
@@ -1,10 +1,12 @@
 package com.spring.library.service;
 
+import com.spring.library.domain.DomainEventType;
 import com.spring.library.domain.User;
 import com.spring.library.repos.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.HashMap;
@@ -31,6 +33,9 @@ public class SettingsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+
 
     public Map<String, Object> checkErrorsInPasswords(User currentUser, Map<String, String> form) {
         Map<String, Object> passwordErrorsMap = new HashMap<>();
@@ -67,8 +72,10 @@ public class SettingsService {
     }
 
 
+    @Transactional
     public void updateUserSettings(User user, String password) {
         user.setPassword(passwordEncoder.encode(password));
         userRepo.save(user);
+        domainEventPublisher.publish(DomainEventType.USER_UPDATED, user.getId());
     }
 }
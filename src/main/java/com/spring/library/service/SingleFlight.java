@@ -0,0 +1,64 @@
+package com.spring.library.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ * Concurrent loads of the same key share one call to the loader: the first caller runs it,
+ * the others wait for its result. Nothing is kept once the load is over, this is not a cache.
+ * Only for reads whose result is never modified by the callers.
+ */
+@Component
+public class SingleFlight {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String name, Object key, Supplier<T> loader) {
+        String flightKey = name + ":" + key;
+        CompletableFuture<Object> ownFlight = new CompletableFuture<>();
+        CompletableFuture<Object> otherFlight = inFlight.putIfAbsent(flightKey, ownFlight);
+        if (otherFlight != null) {
+            meterRegistry.counter("library.single.flight.coalesced", "name", name).increment();
+            return (T) await(otherFlight);
+        }
+
+        meterRegistry.counter("library.single.flight.loads", "name", name).increment();
+        try {
+            T result = loader.get();
+            ownFlight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            ownFlight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, ownFlight);
+        }
+    }
+
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
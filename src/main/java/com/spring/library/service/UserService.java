@@ -1,13 +1,21 @@
 package com.spring.library.service;
 
+import com.spring.library.domain.Assessment;
+import com.spring.library.domain.DomainEventType;
 import com.spring.library.domain.Role;
 import com.spring.library.domain.User;
+import com.spring.library.repos.ReviewRepo;
 import com.spring.library.repos.UserRepo;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -18,7 +26,23 @@ public class UserService implements UserDetailsService {
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private ReviewRepo reviewRepo;
+
+    @Autowired
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+
+    @Autowired
+    private CatalogService catalogService;
 
+    @Value("${view.chunk-rows}")
+    private int chunkRows;
+
+
+    @Transactional(readOnly = true)
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepo.findByUsername(username);
@@ -31,8 +55,17 @@ public class UserService implements UserDetailsService {
     }
 
 
-    public List<User> getUserList() {
-        return userRepo.findAll();
+    public Iterator<User> getUserList() {
+        return new ChunkedIterator<>(this::getUserChunk, User::getId, chunkRows);
+    }
+
+    /* the roles of the whole chunk are batch loaded by the first initialize */
+    private List<User> getUserChunk(Long lastId, Pageable chunk) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<User> users = userRepo.findByIdGreaterThan(lastId, chunk);
+            users.forEach(user -> Hibernate.initialize(user.getRoles()));
+            return users;
+        });
     }
 
     public Set<Role> getSelectedRolesFromForm(Map<String, String> form) {
@@ -50,14 +83,29 @@ public class UserService implements UserDetailsService {
         return selectedRoles;
     }
 
+    @Transactional
     public void updateUserRoles(User user, Set<Role> roles) {
         user.getRoles().clear();
         user.getRoles().addAll(roles);
         userRepo.save(user);
+        domainEventPublisher.publish(DomainEventType.USER_ROLES_UPDATED, user.getId());
     }
 
+    @Transactional
     public void deleteUser(User user) {
+        // the reviews go with the user, each book they were written for gets one event for all of them
+        Map<Long, int[]> countsByBook = new TreeMap<>();
+        for (Object[] review : reviewRepo.findBookIdsAndAssessmentsByAuthor_Id(user.getId())) {
+            int[] counts = countsByBook.computeIfAbsent((Long) review[0], bookId -> new int[2]);
+            counts[0]++;
+            counts[1] += ReviewService.positive((Assessment) review[1]);
+        }
+        for (Map.Entry<Long, int[]> book : countsByBook.entrySet()) {
+            catalogService.changeReviewCounts(book.getKey(), -book.getValue()[0], -book.getValue()[1]);
+            domainEventPublisher.publish(DomainEventType.BOOK_REVIEWS_DELETED, book.getKey(), user.getId());
+        }
         userRepo.delete(user);
+        domainEventPublisher.publish(DomainEventType.USER_DELETED, user.getId());
     }
 
 }
@@ -0,0 +1,236 @@
+package com.spring.library.service;
+
+import com.spring.library.domain.CatalogEntry;
+import com.spring.library.repos.CatalogEntryRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Warms a node up after it starts: reads the data behind the busiest pages, then requests
+ * those pages over HTTP for warmup.rounds rounds as the warmup.username account, so the
+ * request path is compiled by the JIT before real traffic arrives. Without an account only
+ * the data is read. The node reports ready (see ReadinessEndpoint) once this is over,
+ * or after warmup.max-seconds however far it got.
+ *
+ * No password is needed: the requests carry a token made at startup that never leaves this
+ * process, and WarmupAuthenticationFilter signs them in as the account, from loopback and
+ * until the warm-up is over only.
+ */
+@Service
+public class WarmupService {
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+    public static final String TOKEN_HEADER = "X-Warmup-Token";
+
+    @Value("${warmup.enabled}")
+    private boolean enabled;
+
+    @Value("${warmup.username}")
+    private String username;
+
+    @Value("${warmup.top-books}")
+    private int topBooks;
+
+    @Value("${warmup.rounds}")
+    private int rounds;
+
+    @Value("${warmup.max-seconds}")
+    private long maxSeconds;
+
+    @Autowired
+    private CatalogEntryRepo catalogEntryRepo;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private WriterService writerService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private UserService userService;
+
+    private final String token = newToken();
+    private volatile UserDetails account;
+    private volatile boolean isWarm;
+    private volatile int completedRounds;
+    private String sessionCookie;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup(ApplicationReadyEvent event) {
+        if (!enabled || !(event.getApplicationContext() instanceof WebServerApplicationContext)) {
+            isWarm = true;
+            return;
+        }
+
+        int port = ((WebServerApplicationContext) event.getApplicationContext()).getWebServer().getPort();
+        Thread warmup = new Thread(() -> warmUp(port), "warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    public boolean isWarm() {
+        return isWarm;
+    }
+
+    public int getCompletedRounds() {
+        return completedRounds;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    /* null unless the token is this node's and the warm-up still runs */
+    public Authentication authenticate(String requestToken) {
+        UserDetails user = account;
+        if (isWarm || user == null || requestToken == null
+                || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), requestToken.getBytes(StandardCharsets.UTF_8))) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+
+    private void warmUp(int port) {
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + TimeUnit.SECONDS.toMillis(maxSeconds);
+        int failedRequests = 0;
+        try {
+            List<CatalogEntry> books = catalogEntryRepo.findByOrderByReviewCountDesc(PageRequest.of(0, topBooks));
+            preloadData(books);
+
+            if (StringUtils.isEmpty(username)) {
+                log.info("No warmup.username, the request mix is skipped");
+                return;
+            }
+
+            try {
+                UserDetails user = userService.loadUserByUsername(username);
+                if (!user.isEnabled()) {
+                    log.warn("Warm-up account {} is not active, the request mix is skipped", username);
+                    return;
+                }
+                account = user;
+            } catch (UsernameNotFoundException e) {
+                log.warn("No warm-up account {}, the request mix is skipped", username);
+                return;
+            }
+
+            List<String> paths = getPaths(books);
+            while (completedRounds < rounds && System.currentTimeMillis() < deadline) {
+                for (String path : paths) {
+                    if (!request(port, path)) {
+                        failedRequests++;
+                    }
+                }
+                completedRounds++;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Warm-up stopped early", e);
+        } finally {
+            isWarm = true;
+            log.info("Warm-up finished in {} ms: {} of {} rounds, {} failed requests",
+                    System.currentTimeMillis() - startTime, completedRounds, rounds, failedRequests);
+        }
+    }
+
+    private void preloadData(List<CatalogEntry> books) {
+        writerService.getWriterSummaryPage(0L);
+        bookService.getBookList().hasNext();
+        for (CatalogEntry book : books) {
+            bookService.getBookDto(book.getId());
+            reviewService.getBookReviewDtoPage(book.getId(), 0L, 20);
+            if (book.getWriterId() != null) {
+                bookService.getWriterBookPreviewPage(book.getWriterId(), 0L);
+            }
+        }
+    }
+
+    /* the pages of the main controllers, for the most reviewed books and their writers */
+    private List<String> getPaths(List<CatalogEntry> books) {
+        List<String> paths = new ArrayList<>(Arrays.asList("/books", "/writers", "/api/v1/books"));
+        Set<Long> writerIds = new LinkedHashSet<>();
+        for (CatalogEntry book : books) {
+            paths.add("/books/" + book.getId());
+            paths.add("/books/" + book.getId() + "/reviews");
+            paths.add("/api/v1/books/" + book.getId());
+            paths.add("/api/v1/books/" + book.getId() + "/reviews");
+            if (book.getWriterId() != null) {
+                writerIds.add(book.getWriterId());
+            }
+        }
+        for (Long writerId : writerIds) {
+            paths.add("/writers/" + writerId);
+            paths.add("/writers/" + writerId + "/books");
+        }
+        return paths;
+    }
+
+    private boolean request(int port, String path) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+            connection.setRequestProperty(TOKEN_HEADER, token);
+            if (sessionCookie != null) {
+                connection.setRequestProperty("Cookie", sessionCookie);
+            }
+            connection.setInstanceFollowRedirects(false);
+
+            int status = connection.getResponseCode();
+            try (InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+                if (body != null) {
+                    StreamUtils.drain(body);
+                }
+            }
+            // the first page opens a session for the account, the later requests reuse it
+            rememberSession(connection);
+            return status < 300;
+        } catch (IOException e) {
+            log.debug("Warm-up request {} failed", path, e);
+            return false;
+        }
+    }
+
+    private void rememberSession(HttpURLConnection connection) {
+        String cookie = connection.getHeaderField("Set-Cookie");
+        if (cookie != null) {
+            sessionCookie = cookie.split(";", 2)[0];
+        }
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
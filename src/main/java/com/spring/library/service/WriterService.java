@@ -1,11 +1,19 @@
 package com.spring.library.service;
 
+import com.spring.library.domain.DomainEventType;
 import com.spring.library.domain.Writer;
+import com.spring.library.dto.CursorPage;
+import com.spring.library.dto.WriterSummary;
 import com.spring.library.repos.WriterRepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class WriterService {
@@ -13,17 +21,46 @@ public class WriterService {
     @Autowired
     private WriterRepo writerRepo;
 
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+
+    @Value("${view.page-size}")
+    private int pageSize;
+
 
+    @Transactional(readOnly = true)
     public List<Writer> getWriterList() {
         return writerRepo.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<WriterSummary> getWriterSummaryPage(Long after) {
+        List<WriterSummary> writers = writerRepo.findWriterSummaries(after, PageRequest.of(0, pageSize));
+        addCounts(writers);
+        return new CursorPage<>(writers, pageSize, WriterSummary::getId);
+    }
+
+    /* one grouped query for the counts of the whole page */
+    private void addCounts(List<WriterSummary> writers) {
+        if (writers.isEmpty()) {
+            return;
+        }
+
+        Map<Long, WriterSummary> writersById = writers.stream()
+                .collect(Collectors.toMap(WriterSummary::getId, writer -> writer));
+        for (Object[] counts : writerRepo.countBooksAndReviews(writersById.keySet())) {
+            writersById.get((Long) counts[0]).setCounts((Long) counts[1], (Long) counts[2], (Long) counts[3]);
+        }
+    }
+
+    @Transactional
     public boolean addNewWriter(Writer writer) {
         if (isWriterExists(writer)) {
             return false;
         }
 
         writerRepo.save(writer);
+        domainEventPublisher.publish(DomainEventType.WRITER_ADDED, writer.getId());
         return true;
     }
 
@@ -32,13 +69,22 @@ public class WriterService {
         return writerFromDb != null;
     }
 
+    @Transactional(readOnly = true)
+    public boolean isWriterExists(Long writerId) {
+        return writerRepo.existsById(writerId);
+    }
+
+    @Transactional
     public void updateWriter(Writer dbWriter, Writer editedWriter) {
         dbWriter.setFirstName(editedWriter.getFirstName());
         dbWriter.setLastName(editedWriter.getLastName());
         writerRepo.save(dbWriter);
+        domainEventPublisher.publish(DomainEventType.WRITER_UPDATED, dbWriter.getId());
     }
 
+    @Transactional
     public void deleteWriter(Writer writer) {
         writerRepo.delete(writer);
+        domainEventPublisher.publish(DomainEventType.WRITER_DELETED, writer.getId());
     }
 }
@@ -0,0 +1,20 @@
+alter table outbox_event add column claim varchar(36);
+alter table outbox_event add column claimed_until datetime(3);
+
+create table outbox_delivery (
+    id bigint not null auto_increment,
+    event_id bigint not null,
+    subscriber varchar(255) not null,
+    status varchar(16) not null,
+    attempts integer not null,
+    next_attempt_at datetime(3) not null,
+    claim varchar(36),
+    claimed_until datetime(3),
+    last_error varchar(1024),
+    primary key (id),
+    constraint outbox_delivery_event_subscriber_uk unique (event_id, subscriber),
+    constraint outbox_delivery_event_fk foreign key (event_id) references outbox_event (id)
+);
+
+create index outbox_delivery_due_idx
+    on outbox_delivery (subscriber, status, next_attempt_at);
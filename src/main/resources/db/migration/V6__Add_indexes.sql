@@ -0,0 +1,11 @@
+create index usr_username_idx
+    on usr (username);
+
+create index writer_name_idx
+    on writer (first_name, last_name);
+
+create index book_name_writer_idx
+    on book (book_name, writer_id);
+
+create index review_user_book_idx
+    on review (user_id, book_id);
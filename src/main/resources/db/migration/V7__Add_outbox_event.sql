@@ -0,0 +1,12 @@
+create table outbox_event (
+    id bigint not null auto_increment,
+    type varchar(64) not null,
+    aggregate_id bigint not null,
+    parent_id bigint,
+    created_at datetime(3) not null,
+    dispatched bit not null,
+    primary key (id)
+);
+
+create index outbox_event_dispatched_idx
+    on outbox_event (dispatched, id);
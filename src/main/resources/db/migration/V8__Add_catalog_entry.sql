@@ -0,0 +1,28 @@
+create table catalog_entry (
+    book_id bigint not null,
+    book_name varchar(127) not null,
+    writer_id bigint,
+    writer_name varchar(255),
+    genres int not null,
+    review_count bigint not null,
+    positive_review_count bigint not null,
+    filename varchar(255),
+    updated_at datetime(3) not null,
+    primary key (book_id)
+);
+
+create index catalog_entry_writer_idx
+    on catalog_entry (writer_id);
+
+insert into catalog_entry (
+    book_id, book_name, writer_id, writer_name, genres,
+    review_count, positive_review_count, filename, updated_at
+)
+select b.id, b.book_name, w.id, concat(w.last_name, ', ', w.first_name),
+    (select coalesce(sum(case g.genres
+        when 'TRAGEDY' then 1 when 'DRAMA' then 2 when 'HORROR' then 4 when 'FANTASY' then 8 else 0 end), 0)
+        from book_genre g where g.book_id = b.id),
+    (select count(*) from review r where r.book_id = b.id),
+    (select count(*) from review r where r.book_id = b.id and r.assessment = 'POSITIVE'),
+    b.filename, now(3)
+from book b left join writer w on w.id = b.writer_id;
@@ -0,0 +1,2 @@
+create index catalog_entry_review_count_idx
+    on catalog_entry (review_count);
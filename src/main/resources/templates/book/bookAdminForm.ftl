@@ -122,6 +122,8 @@
                 prependText = "Poster"
                 error = (posterFileError??)?then(posterFileError, "")
             />
+            <!--Token of a poster sent through /posters/uploads by an API client, the page itself sends posterFile-->
+            <input type="hidden" name="posterToken" id="posterToken" value="${posterToken!}" />
         </div>
 
     </div>
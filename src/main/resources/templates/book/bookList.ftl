@@ -19,17 +19,19 @@
 </div>
 
 <@ui.table
-    headers = ["Name", "Author", "Genres"]
+    headers = ["Name", "Author", "Genres", "Reviews"]
 >
 
 <#list books as book>
     <tr>
         <td><a href="/books/${book.id}">${book.bookName}</a></td>
-        <td><a href="/writers/${book.writer.id}">${book.writer.toString()}</a></td>
+        <td><#if book.writerId??><a href="/writers/${book.writerId}">${book.writerName}</a></#if></td>
         <td>
             <#list book.genres as genre>${genre}<#sep>, </#list>
         </td>
+        <td>${book.reviewCount}</td>
     </tr>
+    <#if streaming && book?counter % chunkRows == 0><#flush></#if>
 </#list>
 
 </@ui.table>
@@ -13,6 +13,7 @@
 </head>
 <body>
 <#include "navbar.ftl">
+<#if streaming><#flush></#if>
 <div class="container mt-5">
 <#nested>
 </div>
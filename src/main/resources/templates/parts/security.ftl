@@ -1,10 +1,13 @@
-<#assign
-    known = Session.SPRING_SECURITY_CONTEXT??
->
-
-<#if known>
+<#-- already resolved by SecurityModelInterceptor for controller views -->
+<#if !known??>
     <#assign
-        currentUser = Session.SPRING_SECURITY_CONTEXT.authentication.principal
-        isAdmin = currentUser.isAdmin()
+        known = Session.SPRING_SECURITY_CONTEXT??
     >
+
+    <#if known>
+        <#assign
+            currentUser = Session.SPRING_SECURITY_CONTEXT.authentication.principal
+            isAdmin = currentUser.isAdmin()
+        >
+    </#if>
 </#if>
\ No newline at end of file
@@ -57,6 +57,7 @@
     </#if>
 
     </@ui.card>
+    <#if streaming && review?counter % chunkRows == 0><#flush></#if>
 <#else>
     <div class="form-group row">
         <label class="col col-form-label">No reviews</label>
@@ -117,6 +117,21 @@
 </#macro>
 
 
+<!--NEXT PAGE-->
+<#macro nextPage
+    page
+    url
+>
+
+<#if page.next??>
+    <div class="form-group">
+        <a class="btn btn-outline-primary" href="${url}?after=${page.next?c}">Next</a>
+    </div>
+</#if>
+
+</#macro>
+
+
 <!--CARDS-->
 <#macro card
     headerLinks
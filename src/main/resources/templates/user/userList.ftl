@@ -17,6 +17,7 @@
             <#list user.roles as role>${role}<#sep>, </#list>
         </td>
     </tr>
+    <#if streaming && user?counter % chunkRows == 0><#flush></#if>
 </#list>
 
 </@ui.table>
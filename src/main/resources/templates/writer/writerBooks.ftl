@@ -6,7 +6,7 @@
 
 <@c.page>
 
-<#list books as book>
+<#list page.items as book>
     <@ui.card
         headerLinks = {
             "/books/" + book.id                 : book.bookName,
@@ -14,7 +14,7 @@
         }
     >
 
-    <p class="card-text">${book.annotation}</p>
+    <p class="card-text">${book.annotation}<#if book.annotationCut>... <a href="/books/${book.id}">more</a></#if></p>
 
     </@ui.card>
 <#else>
@@ -23,4 +23,9 @@
     </div>
 </#list>
 
+<@ui.nextPage
+    page = page
+    url  = "/writers/" + writer.id + "/books"
+/>
+
 </@c.page>
\ No newline at end of file
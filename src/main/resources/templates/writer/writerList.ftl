@@ -21,17 +21,25 @@
 <!--Форма поиска автора-->
 
 <@ui.table
-    headers = ["First name", "Last name"]
+    headers = ["First name", "Last name", "Books", "Reviews", "Positive"]
 >
 
-<#list writers as writer>
+<#list page.items as writer>
     <tr>
         <td><a href="/writers/${writer.id}">${writer.firstName}</a></td>
         <td><a href="/writers/${writer.id}">${writer.lastName}</a></td>
+        <td><a href="/writers/${writer.id}/books">${writer.bookCount}</a></td>
+        <td>${writer.reviewCount}</td>
+        <td>${writer.positiveShare}%</td>
     </tr>
 </#list>
 
 </@ui.table>
 
+<@ui.nextPage
+    page = page
+    url  = "/writers"
+/>
+
 
 </@c.page>
\ No newline at end of file
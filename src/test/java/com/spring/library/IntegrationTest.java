@@ -0,0 +1,102 @@
+package com.spring.library;
+
+import com.spring.library.domain.*;
+import com.spring.library.repos.BookRepo;
+import com.spring.library.repos.ReviewRepo;
+import com.spring.library.repos.UserRepo;
+import com.spring.library.repos.WriterRepo;
+import com.spring.library.service.EntityResolver;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.*;
+
+/*
+ * The whole application on the in-memory database of the test profile. Every test starts from
+ * empty tables; rows saved through the repositories bypass the services, so tests that read the
+ * catalog rebuild it first.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class IntegrationTest {
+    // children before parents
+    private static final List<String> TABLES = Arrays.asList(
+            "review", "book_genre", "book", "writer", "user_role", "usr", "catalog_entry",
+            "outbox_delivery", "outbox_event");
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected UserRepo userRepo;
+
+    @Autowired
+    protected WriterRepo writerRepo;
+
+    @Autowired
+    protected BookRepo bookRepo;
+
+    @Autowired
+    protected ReviewRepo reviewRepo;
+
+    @Autowired
+    protected EntityResolver entityResolver;
+
+
+    @Before
+    public void clearTables() {
+        for (String table : TABLES) {
+            jdbcTemplate.update("delete from " + table);
+        }
+        entityResolver.evictAll();
+    }
+
+
+    protected User saveUser(String username, Role... roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$08$eLovvQTHtjF8KchFojNvReAGD/Hc4ptxlZ4Q14bGyM5kFr7jLreNa");
+        user.setActive(true);
+        user.setRoles(new HashSet<>(Arrays.asList(roles)));
+        return userRepo.save(user);
+    }
+
+    protected Writer saveWriter(String lastName) {
+        Writer writer = new Writer();
+        writer.setFirstName("First");
+        writer.setLastName(lastName);
+        return writerRepo.save(writer);
+    }
+
+    protected Book saveBook(Writer writer, String bookName, Genre... genres) {
+        Book book = new Book();
+        book.setBookName(bookName);
+        book.setAnnotation("Annotation of " + bookName);
+        book.setPublicationDate(new Date(0));
+        book.setFilename("poster.png");
+        book.setWriter(writer);
+        book.setGenres(genres.length == 0 ? EnumSet.of(Genre.DRAMA) : EnumSet.copyOf(Arrays.asList(genres)));
+        return bookRepo.save(book);
+    }
+
+    protected Review saveReview(Book book, User author, Assessment assessment) {
+        Review review = new Review();
+        review.setText("Review of " + book.getBookName() + " by " + author.getUsername());
+        review.setAssessment(assessment);
+        review.setBook(book);
+        review.setAuthor(author);
+        return reviewRepo.save(review);
+    }
+}
@@ -0,0 +1,140 @@
+package com.spring.library.audit;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/* the event id of every test event is its position, so order and losses show in the ids */
+public class AuditRingBufferTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityIsAPowerOfTwo() {
+        new AuditRingBuffer(6);
+    }
+
+    @Test
+    public void emptyBufferPollsNothing() {
+        assertNull(new AuditRingBuffer(4).poll());
+    }
+
+    @Test
+    public void eventsComeOutInTheOrderTheyWentIn() {
+        AuditRingBuffer buffer = new AuditRingBuffer(8);
+        for (long id = 0; id < 5; id++) {
+            assertTrue(buffer.offer(event(id)));
+        }
+
+        for (long id = 0; id < 5; id++) {
+            assertEquals(Long.valueOf(id), buffer.poll().getEventId());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void fullBufferRefusesUntilAnEventIsTaken() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (long id = 0; id < 4; id++) {
+            assertTrue(buffer.offer(event(id)));
+        }
+
+        assertFalse(buffer.offer(event(4)));
+        assertEquals(Long.valueOf(0), buffer.poll().getEventId());
+        assertTrue(buffer.offer(event(4)));
+        assertFalse(buffer.offer(event(5)));
+
+        for (long id = 1; id <= 4; id++) {
+            assertEquals(Long.valueOf(id), buffer.poll().getEventId());
+        }
+    }
+
+    @Test
+    public void slotsAreReusedLapAfterLap() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        long nextOffered = 0;
+        long nextPolled = 0;
+        for (int lap = 0; lap < 100; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.offer(event(nextOffered++)));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Long.valueOf(nextPolled++), buffer.poll().getEventId());
+            }
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothingThatWasAccepted() throws InterruptedException {
+        int producers = 4;
+        int eventsPerProducer = 50_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers);
+        AtomicInteger refused = new AtomicInteger();
+
+        for (int producer = 0; producer < producers; producer++) {
+            long firstId = (long) producer * eventsPerProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (long id = firstId; id < firstId + eventsPerProducer; id++) {
+                        if (!buffer.offer(event(id))) {
+                            refused.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        // the test thread is the single consumer
+        List<Long> polled = new ArrayList<>();
+        start.countDown();
+        while (done.getCount() > 0) {
+            AuditEvent event = buffer.poll();
+            if (event != null) {
+                polled.add(event.getEventId());
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (AuditEvent event = buffer.poll(); event != null; event = buffer.poll()) {
+            polled.add(event.getEventId());
+        }
+
+        Set<Long> distinct = new HashSet<>(polled);
+        assertEquals(polled.size(), distinct.size());
+        assertEquals(producers * eventsPerProducer, polled.size() + refused.get());
+        assertProducerOrder(polled, producers, eventsPerProducer);
+    }
+
+
+    /* one producer's events keep their order among the events of the others */
+    private static void assertProducerOrder(List<Long> polled, int producers, int eventsPerProducer) {
+        long[] last = new long[producers];
+        Arrays.fill(last, -1);
+        for (Long id : polled) {
+            int producer = (int) (id / eventsPerProducer);
+            assertTrue(id > last[producer]);
+            last[producer] = id;
+        }
+    }
+
+    private static AuditEvent event(long id) {
+        return new AuditEvent(Instant.EPOCH, id, "admin", "BOOK_UPDATED", id, null);
+    }
+}
@@ -0,0 +1,127 @@
+package com.spring.library.config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+ * Two in-memory databases stand in for the primary and a replica, each knows its own name;
+ * the routing is wired the way DataSourceConfig wires it.
+ */
+public class ReplicaRoutingDataSourceTest {
+    private DataSource primary;
+    private DataSource replica;
+
+    @Before
+    public void createDatabases() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @After
+    public void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+    @Test
+    public void readOnlyTransactionReadsFromTheReplica() {
+        DataSource dataSource = routing(replica, 5);
+
+        assertEquals("replica", read(dataSource, true));
+    }
+
+    @Test
+    public void readWriteTransactionUsesThePrimary() {
+        DataSource dataSource = routing(replica, 5);
+
+        assertEquals("primary", read(dataSource, false));
+    }
+
+    @Test
+    public void statementOutsideTransactionUsesThePrimary() {
+        DataSource dataSource = routing(replica, 5);
+
+        assertEquals("primary", new JdbcTemplate(dataSource).queryForObject("select name from node", String.class));
+    }
+
+    @Test
+    public void userWhoJustWroteReadsFromThePrimary() {
+        DataSource dataSource = routing(replica, 5);
+        loginAs("writer");
+        read(dataSource, false);
+
+        assertEquals("primary", read(dataSource, true));
+
+        loginAs("reader");
+        assertEquals("replica", read(dataSource, true));
+    }
+
+    @Test
+    public void userReadsFromTheReplicaAgainOnceStickinessExpires() {
+        DataSource dataSource = routing(replica, 0);
+        loginAs("writer");
+        read(dataSource, false);
+
+        assertEquals("replica", read(dataSource, true));
+    }
+
+    @Test
+    public void unavailableReplicaFallsBackToThePrimary() {
+        DataSource dataSource = routing(new DriverManagerDataSource("jdbc:unavailable:replica"), 5);
+
+        assertEquals("primary", read(dataSource, true));
+        assertEquals("primary", read(dataSource, true));
+    }
+
+    @Test
+    public void connectionWithCredentialsComesFromThePrimary() throws Exception {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+                primary, Collections.singletonList(replica), 5, 30);
+
+        try (Connection connection = dataSource.getConnection("sa", "")) {
+            assertEquals("primary", new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("select name from node", String.class));
+        }
+    }
+
+
+    private DataSource routing(DataSource replica, long stickySeconds) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primary, Collections.singletonList(replica), stickySeconds, 30));
+    }
+
+    private String read(DataSource dataSource, boolean isReadOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(isReadOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select name from node", String.class));
+    }
+
+    private void loginAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, "password", "USER"));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(16))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,151 @@
+package com.spring.library.controller;
+
+import com.spring.library.IntegrationTest;
+import com.spring.library.domain.*;
+import com.spring.library.metrics.QueryBudgetFilter;
+import com.spring.library.metrics.QueryStats;
+import com.spring.library.service.CatalogService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static com.spring.library.metrics.QueryAssertions.assertStatements;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * Pins the SQL statements of the main pages. Every page is requested for a small entity and for
+ * one with ten times the rows behind it: the counts must be the same, so nothing is loaded per row.
+ */
+public class PageQueryCountTest extends IntegrationTest {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    private User admin;
+    private User smallReader;
+    private User largeReader;
+    private Writer smallWriter;
+    private Writer largeWriter;
+    private Book smallBook;
+    private Book largeBook;
+
+
+    @Before
+    public void saveLibrary() {
+        admin = saveUser("admin", Role.USER, Role.ADMIN);
+
+        smallWriter = saveWriter("Small");
+        smallBook = saveBook(smallWriter, "Small book");
+        smallReader = saveUser("small-reader", Role.USER);
+        saveReview(smallBook, smallReader, Assessment.POSITIVE);
+
+        largeWriter = saveWriter("Large");
+        largeReader = saveUser("large-reader", Role.USER);
+        for (int i = 1; i <= 10; i++) {
+            Book book = saveBook(largeWriter, "Large book " + i, Genre.DRAMA, Genre.HORROR);
+            if (i == 1) {
+                largeBook = book;
+            }
+            saveReview(book, largeReader, Assessment.NEUTRAL);
+        }
+        for (int i = 2; i <= 10; i++) {
+            saveReview(largeBook, saveUser("reader" + i, Role.USER), Assessment.NEGATIVE);
+        }
+
+        catalogService.rebuild();
+    }
+
+
+    @Test
+    public void bookListIsOneRangeScanOfTheCatalog() throws Exception {
+        assertStatements(request("/books"), 1);
+    }
+
+    @Test
+    public void writerDirectoryLoadsCountsForTheWholePage() throws Exception {
+        assertStatements(request("/writers"), 2);
+    }
+
+    @Test
+    public void bookPage() throws Exception {
+        assertSameStatements(1, "/books/" + smallBook.getId(), "/books/" + largeBook.getId());
+    }
+
+    @Test
+    public void bookReviewsPage() throws Exception {
+        assertSameStatements(2, "/books/" + smallBook.getId() + "/reviews", "/books/" + largeBook.getId() + "/reviews");
+    }
+
+    @Test
+    public void userReviewsPage() throws Exception {
+        assertSameStatements(2, "/users/" + smallReader.getId() + "/reviews", "/users/" + largeReader.getId() + "/reviews");
+    }
+
+    @Test
+    public void writerPage() throws Exception {
+        assertSameStatements(1, "/writers/" + smallWriter.getId(), "/writers/" + largeWriter.getId());
+    }
+
+    @Test
+    public void writerBooksPage() throws Exception {
+        assertSameStatements(2, "/writers/" + smallWriter.getId() + "/books", "/writers/" + largeWriter.getId() + "/books");
+    }
+
+    @Test
+    public void apiBook() throws Exception {
+        assertSameStatements(2, "/api/v1/books/" + smallBook.getId(), "/api/v1/books/" + largeBook.getId());
+    }
+
+    @Test
+    public void apiBookReviews() throws Exception {
+        assertSameStatements(2, "/api/v1/books/" + smallBook.getId() + "/reviews",
+                "/api/v1/books/" + largeBook.getId() + "/reviews");
+    }
+
+    @Test
+    public void apiWriterBooks() throws Exception {
+        assertSameStatements(3, "/api/v1/writers/" + smallWriter.getId() + "/books",
+                "/api/v1/writers/" + largeWriter.getId() + "/books");
+    }
+
+    @Test
+    public void loginIsCountedThoughSecurityAnswersIt() throws Exception {
+        QueryStats stats = (QueryStats) mockMvc.perform(post("/login")
+                        .param("username", smallReader.getUsername())
+                        .param("password", "wrong password")
+                        .with(csrf()))
+                .andExpect(redirectedUrl("/login?error"))
+                .andReturn()
+                .getRequest()
+                .getAttribute(QueryBudgetFilter.STATS_ATTRIBUTE);
+
+        assertNotNull("the login never reached the query budget filter", stats);
+        assertTrue("the user lookup was not counted: " + stats, stats.getStatements() > 0);
+    }
+
+
+    private void assertSameStatements(int expected, String smallUrl, String largeUrl) throws Exception {
+        QueryStats small = request(smallUrl);
+        QueryStats large = request(largeUrl);
+        assertEquals("Statements of " + largeUrl + " against " + smallUrl, small.getStatements(), large.getStatements());
+        assertStatements(small, expected);
+    }
+
+    /* entities cached by an earlier request would hide the queries of this one */
+    private QueryStats request(String url) throws Exception {
+        entityResolver.evictAll();
+        return (QueryStats) mockMvc.perform(get(url).with(user(admin)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getRequest()
+                .getAttribute(QueryBudgetFilter.STATS_ATTRIBUTE);
+    }
+}
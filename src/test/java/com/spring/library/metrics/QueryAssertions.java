@@ -0,0 +1,25 @@
+package com.spring.library.metrics;
+
+/* lets a controller test pin the number of statements its request runs */
+public final class QueryAssertions {
+
+    private QueryAssertions() {
+    }
+
+
+    public static QueryStats assertStatements(QueryStats stats, int expected) {
+        if (stats.getStatements() != expected) {
+            throw new AssertionError("Expected " + expected + " SQL statements, but was " + stats);
+        }
+
+        return stats;
+    }
+
+    public static QueryStats assertStatementsAtMost(QueryStats stats, int max) {
+        if (stats.getStatements() > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements, but was " + stats);
+        }
+
+        return stats;
+    }
+}
@@ -0,0 +1,96 @@
+package com.spring.library.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+    private RateLimiter rateLimiter;
+
+    @Before
+    public void createRateLimiter() {
+        rateLimiter = rateLimiter("2 60", "POST /login 3 60", "POST /books/*/reviews 1 60");
+    }
+
+
+    @Test
+    public void ruleIsFoundByMethodAndPattern() {
+        assertEquals("POST /books/*/reviews", rateLimiter.findRule("POST", "/books/7/reviews").getName());
+        assertNull(rateLimiter.findRule("GET", "/books/7/reviews"));
+        assertNull(rateLimiter.findRule("POST", "/books"));
+    }
+
+    @Test
+    public void clientIsRejectedOnceItsPermitsAreUsed() {
+        RateLimiter.Rule login = rateLimiter.findRule("POST", "/login");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(login, "ip:10.0.0.1"));
+        }
+
+        long retryAfterSeconds = rateLimiter.tryAcquire(login, "ip:10.0.0.1");
+        assertTrue(retryAfterSeconds >= 1 && retryAfterSeconds <= 20);
+        assertEquals(0, rateLimiter.tryAcquire(login, "ip:10.0.0.2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ruleWithoutPermitsIsRejected() {
+        rateLimiter("2 60", "POST /login 0 60");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void basicAuthRuleWithoutPermitsIsRejected() {
+        rateLimiter("0 60");
+    }
+
+    @Test
+    public void basicCredentialsCountPerUsernameAcrossAddresses() throws Exception {
+        BasicAuthRateLimitFilter filter = new BasicAuthRateLimitFilter(rateLimiter);
+
+        assertEquals(HttpStatus.OK.value(), basicRequest(filter, "10.0.0.1", "admin"));
+        assertEquals(HttpStatus.OK.value(), basicRequest(filter, "10.0.0.2", "admin"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), basicRequest(filter, "10.0.0.3", "admin"));
+        assertEquals(HttpStatus.OK.value(), basicRequest(filter, "10.0.0.3", "reader"));
+    }
+
+    @Test
+    public void basicCredentialsCountPerAddressAcrossUsernames() throws Exception {
+        BasicAuthRateLimitFilter filter = new BasicAuthRateLimitFilter(rateLimiter);
+
+        assertEquals(HttpStatus.OK.value(), basicRequest(filter, "10.0.0.1", "first"));
+        assertEquals(HttpStatus.OK.value(), basicRequest(filter, "10.0.0.1", "second"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), basicRequest(filter, "10.0.0.1", "third"));
+    }
+
+
+    private static int basicRequest(BasicAuthRateLimitFilter filter, String address, String username) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/books");
+        request.setRemoteAddr(address);
+        String credentials = username + ":password";
+        request.addHeader(HttpHeaders.AUTHORIZATION,
+                "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    private static RateLimiter rateLimiter(String basicAuthSpec, String... ruleSpecs) {
+        RateLimiter rateLimiter = new RateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "ruleSpecs", ruleSpecs);
+        ReflectionTestUtils.setField(rateLimiter, "basicAuthSpec", basicAuthSpec);
+        ReflectionTestUtils.setField(rateLimiter, "maxClients", 1000L);
+        ReflectionTestUtils.setField(rateLimiter, "meterRegistry", new SimpleMeterRegistry());
+        rateLimiter.createRules();
+        return rateLimiter;
+    }
+}
@@ -0,0 +1,80 @@
+package com.spring.library.ratelimit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/* 10 permits per second: one permit every 100 ms, a full bucket holds 10 */
+public class TokenBucketTest {
+    private static final long PERIOD = TimeUnit.SECONDS.toNanos(1);
+    private static final long PERMIT = PERIOD / 10;
+
+    @Test
+    public void fullBucketGivesTheWholeBurst() {
+        TokenBucket bucket = new TokenBucket();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.tryAcquire(0, PERMIT, PERIOD));
+        }
+        assertEquals(PERMIT, bucket.tryAcquire(0, PERMIT, PERIOD));
+    }
+
+    @Test
+    public void permitsComeBackAtTheRate() {
+        TokenBucket bucket = new TokenBucket();
+        for (int i = 0; i < 10; i++) {
+            bucket.tryAcquire(0, PERMIT, PERIOD);
+        }
+
+        assertEquals(PERMIT / 2, bucket.tryAcquire(PERMIT / 2, PERMIT, PERIOD));
+        assertEquals(0, bucket.tryAcquire(PERMIT, PERMIT, PERIOD));
+        assertEquals(PERMIT, bucket.tryAcquire(PERMIT, PERMIT, PERIOD));
+    }
+
+    @Test
+    public void idleBucketIsFullAgainButNotFuller() {
+        TokenBucket bucket = new TokenBucket();
+        bucket.tryAcquire(0, PERMIT, PERIOD);
+
+        int taken = 0;
+        while (bucket.tryAcquire(10 * PERIOD, PERMIT, PERIOD) == 0) {
+            taken++;
+        }
+        assertEquals(10, taken);
+    }
+
+    @Test
+    public void concurrentClientsShareTheBurst() throws Exception {
+        TokenBucket bucket = new TokenBucket();
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> clients = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            clients.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 100; j++) {
+                    if (bucket.tryAcquire(0, PERMIT, PERIOD) == 0) {
+                        taken.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> client : clients) {
+            client.get();
+        }
+        executor.shutdown();
+
+        assertEquals(10, taken.get());
+        assertTrue(bucket.tryAcquire(0, PERMIT, PERIOD) > 0);
+    }
+}
@@ -0,0 +1,184 @@
+package com.spring.library.service;
+
+import com.spring.library.IntegrationTest;
+import com.spring.library.domain.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/* archives are written to memory and restored from it, the posters live in the upload.path of the test profile */
+public class BackupServiceTest extends IntegrationTest {
+
+    @Value("${upload.path}")
+    private String uploadPath;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    private Path uploadDir;
+
+
+    @Before
+    public void createUploadDir() throws IOException {
+        uploadDir = Paths.get(uploadPath);
+        Files.createDirectories(uploadDir);
+    }
+
+
+    @Test
+    public void restoreBringsBackTablesAndPosters() throws IOException {
+        Book book = saveBook(saveWriter("Writer"), "Book", Genre.DRAMA, Genre.FANTASY);
+        User reader = saveUser("reader", Role.USER, Role.ADMIN);
+        Review review = saveReview(book, reader, Assessment.POSITIVE);
+        writePoster("poster.png", "original poster");
+        Map<String, List<Map<String, Object>>> before = readTables();
+
+        byte[] archive = backup(null);
+
+        jdbcTemplate.update("delete from review");
+        jdbcTemplate.update("update book set book_name = 'Changed' where id = ?", book.getId());
+        saveWriter("Added later");
+        writePoster("poster.png", "changed poster");
+
+        Properties summary = backupService.restore(new ByteArrayInputStream(archive));
+
+        assertEquals(before, readTables());
+        assertEquals("original poster", readPoster("poster.png"));
+        assertEquals("1", summary.getProperty("rows.review"));
+        assertEquals("1", summary.getProperty("posters"));
+        assertEquals(review.getId(), jdbcTemplate.queryForObject("select id from review", Long.class));
+        assertEquals(1, count("select count(*) from catalog_entry where book_id = ? and review_count = 1", book.getId()));
+        assertEquals(1, count("select count(*) from outbox_event where type = ?", DomainEventType.BACKUP_RESTORED.name()));
+        assertNoStagedPosters();
+    }
+
+    @Test
+    public void incrementalArchiveHasAllRowsButOnlyNewerPosters() throws IOException {
+        Writer writer = saveWriter("Writer");
+        saveBook(writer, "Old");
+        Book newer = saveBook(writer, "New");
+        jdbcTemplate.update("update book set filename = 'new.png' where id = ?", newer.getId());
+        writePoster("poster.png", "old poster");
+        Files.setLastModifiedTime(uploadDir.resolve("poster.png"), java.nio.file.attribute.FileTime.fromMillis(0));
+        writePoster("new.png", "new poster");
+
+        Set<String> entries = entryNames(backup(1000L));
+
+        assertTrue(entries.contains("db/book.rows"));
+        assertTrue(entries.contains("posters/new.png"));
+        assertFalse(entries.contains("posters/poster.png"));
+    }
+
+    @Test
+    public void brokenArchiveChangesNothing() throws IOException {
+        Book book = saveBook(saveWriter("Writer"), "Book");
+        writePoster("poster.png", "original poster");
+        catalogService.rebuild();
+        byte[] archive = withEntry(backup(null), "posters/../escape.png", "outside");
+
+        jdbcTemplate.update("update book set book_name = 'Kept' where id = ?", book.getId());
+        writePoster("poster.png", "kept poster");
+
+        try {
+            backupService.restore(new ByteArrayInputStream(archive));
+            fail("an archive with a poster outside the upload directory was restored");
+        } catch (ResponseStatusException e) {
+            assertEquals("INCORRECT POSTER NAME IN BACKUP", e.getReason());
+        }
+
+        assertEquals("Kept", jdbcTemplate.queryForObject("select book_name from book where id = ?", String.class, book.getId()));
+        assertEquals("kept poster", readPoster("poster.png"));
+        assertEquals(0, count("select count(*) from outbox_event where type = ?", DomainEventType.BACKUP_RESTORED.name()));
+        assertNoStagedPosters();
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void otherFilesAreNotRestored() throws IOException {
+        backupService.restore(new ByteArrayInputStream("not a zip".getBytes(StandardCharsets.UTF_8)));
+    }
+
+
+    private byte[] backup(Long postersSince) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        backupService.writeBackup(archive, postersSince);
+        return archive.toByteArray();
+    }
+
+    private Map<String, List<Map<String, Object>>> readTables() {
+        Map<String, List<Map<String, Object>>> tables = new LinkedHashMap<>();
+        tables.put("usr", jdbcTemplate.queryForList("select * from usr order by id"));
+        tables.put("user_role", jdbcTemplate.queryForList("select * from user_role order by user_id, roles"));
+        tables.put("writer", jdbcTemplate.queryForList("select * from writer order by id"));
+        tables.put("book", jdbcTemplate.queryForList("select * from book order by id"));
+        tables.put("book_genre", jdbcTemplate.queryForList("select * from book_genre order by book_id, genres"));
+        tables.put("review", jdbcTemplate.queryForList("select * from review order by id"));
+        return tables;
+    }
+
+    private void writePoster(String filename, String content) throws IOException {
+        Files.write(uploadDir.resolve(filename), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readPoster(String filename) throws IOException {
+        return new String(Files.readAllBytes(uploadDir.resolve(filename)), StandardCharsets.UTF_8);
+    }
+
+    private void assertNoStagedPosters() throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(uploadDir)) {
+            assertFalse(files.anyMatch(file -> file.getFileName().toString().endsWith(".restore")));
+        }
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+
+    private static Set<String> entryNames(byte[] archive) throws IOException {
+        Set<String> names = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    /* the archive with one more entry at the end */
+    private static byte[] withEntry(byte[] archive, String name, String content) throws IOException {
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        try (ZipInputStream input = new ZipInputStream(new ByteArrayInputStream(archive));
+             ZipOutputStream output = new ZipOutputStream(copy)) {
+            byte[] buffer = new byte[8192];
+            for (ZipEntry entry = input.getNextEntry(); entry != null; entry = input.getNextEntry()) {
+                output.putNextEntry(new ZipEntry(entry.getName()));
+                for (int read = input.read(buffer); read > 0; read = input.read(buffer)) {
+                    output.write(buffer, 0, read);
+                }
+                output.closeEntry();
+            }
+            output.putNextEntry(new ZipEntry(name));
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+            output.closeEntry();
+        }
+        return copy.toByteArray();
+    }
+}
@@ -0,0 +1,196 @@
+package com.spring.library.service;
+
+import com.spring.library.IntegrationTest;
+import com.spring.library.domain.*;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/* the catalog is written in the transaction of each change; the tests read it back with plain sql */
+public class CatalogServiceTest extends IntegrationTest {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private UserService userService;
+
+
+    @Test
+    public void addedBookGetsItsEntry() {
+        Writer writer = saveWriter("Writer");
+        Book book = new Book();
+        book.setBookName("New book");
+        book.setAnnotation("Annotation");
+        book.setPublicationDate(new Date(0));
+        book.setFilename("poster.png");
+        book.setWriter(writer);
+        book.setGenres(EnumSet.of(Genre.DRAMA, Genre.FANTASY));
+
+        assertTrue(bookService.addNewBook(book));
+
+        Map<String, Object> entry = entry(book);
+        assertEquals("New book", entry.get("book_name"));
+        assertEquals("Writer, First", entry.get("writer_name"));
+        assertEquals((1 << Genre.DRAMA.ordinal()) | (1 << Genre.FANTASY.ordinal()), ((Number) entry.get("genres")).intValue());
+        assertEquals(0L, ((Number) entry.get("review_count")).longValue());
+    }
+
+    @Test
+    public void reviewsAreCounted() {
+        Book book = saveBook(saveWriter("Writer"), "Book");
+        catalogService.rebuild();
+        User reader = saveUser("reader", Role.USER);
+
+        Review review = new Review();
+        review.setText("Good");
+        review.setAssessment(Assessment.POSITIVE);
+        review.setBook(book);
+        review.setAuthor(reader);
+        assertTrue(reviewService.addNewReview(reader.getId(), book.getId(), review));
+
+        assertEquals(1L, ((Number) entry(book).get("review_count")).longValue());
+        assertEquals(1L, ((Number) entry(book).get("positive_review_count")).longValue());
+    }
+
+    @Test
+    public void concurrentReviewsOfOneBookAreAllCounted() throws Exception {
+        Book book = saveBook(saveWriter("Writer"), "Hot book");
+        catalogService.rebuild();
+        int threads = 2;
+        int reviewsPerThread = 20;
+        List<User> readers = new ArrayList<>();
+        for (int i = 0; i < threads * reviewsPerThread; i++) {
+            readers.add(saveUser("reader" + i, Role.USER));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> posts = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < threads; thread++) {
+                List<User> own = readers.subList(thread * reviewsPerThread, (thread + 1) * reviewsPerThread);
+                posts.add(executor.submit(() -> {
+                    start.await();
+                    for (User reader : own) {
+                        Review review = new Review();
+                        review.setText("Good");
+                        review.setAssessment(reader.getId() % 2 == 0 ? Assessment.POSITIVE : Assessment.NEGATIVE);
+                        review.setBook(book);
+                        review.setAuthor(reader);
+                        assertTrue(reviewService.addNewReview(reader.getId(), book.getId(), review));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> post : posts) {
+                // a deadlock victim fails its post with an exception here
+                post.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long positive = readers.stream().filter(reader -> reader.getId() % 2 == 0).count();
+        assertEquals((long) threads * reviewsPerThread, ((Number) entry(book).get("review_count")).longValue());
+        assertEquals(positive, ((Number) entry(book).get("positive_review_count")).longValue());
+    }
+
+    @Test
+    public void changedAssessmentMovesThePositiveCount() {
+        Book book = saveBook(saveWriter("Writer"), "Book");
+        Review review = saveReview(book, saveUser("reader", Role.USER), Assessment.POSITIVE);
+        catalogService.rebuild();
+
+        Review edited = new Review();
+        edited.setText("Not that good");
+        edited.setAssessment(Assessment.NEGATIVE);
+        reviewService.updateUserReview(review, edited);
+
+        assertEquals(1L, ((Number) entry(book).get("review_count")).longValue());
+        assertEquals(0L, ((Number) entry(book).get("positive_review_count")).longValue());
+
+        reviewService.deleteUserReview(review);
+
+        assertEquals(0L, ((Number) entry(book).get("review_count")).longValue());
+    }
+
+    @Test
+    public void renamedBookKeepsItsCounts() {
+        Book book = saveBook(saveWriter("Writer"), "Book");
+        saveReview(book, saveUser("reader", Role.USER), Assessment.POSITIVE);
+        catalogService.rebuild();
+        Book edited = new Book();
+        edited.setBookName("Renamed");
+        edited.setAnnotation(book.getAnnotation());
+        edited.setPublicationDate(book.getPublicationDate());
+        edited.setWriter(book.getWriter());
+        edited.setGenres(EnumSet.of(Genre.FANTASY));
+
+        bookService.updateBook(book, edited);
+
+        assertEquals("Renamed", entry(book).get("book_name"));
+        assertEquals(1 << Genre.FANTASY.ordinal(), ((Number) entry(book).get("genres")).intValue());
+        assertEquals(1L, ((Number) entry(book).get("review_count")).longValue());
+    }
+
+    @Test
+    public void deletedUserRefreshesEveryReviewedBookOnce() {
+        Writer writer = saveWriter("Writer");
+        Book first = saveBook(writer, "First");
+        Book second = saveBook(writer, "Second");
+        User leaving = saveUser("leaving", Role.USER);
+        User staying = saveUser("staying", Role.USER);
+        saveReview(first, leaving, Assessment.POSITIVE);
+        saveReview(second, leaving, Assessment.NEGATIVE);
+        saveReview(second, staying, Assessment.POSITIVE);
+        catalogService.rebuild();
+
+        userService.deleteUser(leaving);
+
+        assertEquals(0L, ((Number) entry(first).get("review_count")).longValue());
+        assertEquals(1L, ((Number) entry(second).get("review_count")).longValue());
+        assertEquals(1L, ((Number) entry(second).get("positive_review_count")).longValue());
+
+        List<Long> refreshedBooks = jdbcTemplate.queryForList(
+                "select aggregate_id from outbox_event where type = ? order by aggregate_id", Long.class,
+                DomainEventType.BOOK_REVIEWS_DELETED.name());
+        assertEquals(Arrays.asList(first.getId(), second.getId()), refreshedBooks);
+        assertEquals(0, count("select count(*) from outbox_event where type = ?", DomainEventType.REVIEW_DELETED.name()));
+    }
+
+    @Test
+    public void rebuildRestoresMissingAndRemovesOrphanedEntries() {
+        Book book = saveBook(saveWriter("Writer"), "Book");
+        catalogService.rebuild();
+        jdbcTemplate.update("delete from catalog_entry");
+        jdbcTemplate.update("insert into catalog_entry (book_id, book_name, genres, review_count, positive_review_count, " +
+                "updated_at) values (?, 'Deleted', 0, 0, 0, now())", book.getId() + 1000);
+
+        catalogService.rebuild();
+
+        assertEquals("Book", entry(book).get("book_name"));
+        assertEquals(1, count("select count(*) from catalog_entry"));
+    }
+
+
+    private Map<String, Object> entry(Book book) {
+        return jdbcTemplate.queryForMap("select * from catalog_entry where book_id = ?", book.getId());
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+}
@@ -0,0 +1,94 @@
+package com.spring.library.service;
+
+import com.spring.library.IntegrationTest;
+import com.spring.library.domain.Assessment;
+import com.spring.library.domain.Book;
+import com.spring.library.domain.DomainEventType;
+import com.spring.library.domain.OutboxEvent;
+import com.spring.library.domain.Review;
+import com.spring.library.domain.Role;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/* every resolve runs in a request of its own, as the converters and the path interceptor do */
+public class EntityResolverTest extends IntegrationTest {
+    private Book book;
+    private Review review;
+
+    @Before
+    public void saveBook() {
+        book = saveBook(saveWriter("Writer"), "Cached book");
+        review = saveReview(book, saveUser("reader", Role.USER), Assessment.POSITIVE);
+    }
+
+    @After
+    public void endRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    @Test
+    public void requestsDoNotShareCachedEntities() {
+        startRequest();
+        Book first = entityResolver.resolve(Book.class, book.getId(), true);
+        first.setBookName("Changed by the first request");
+
+        startRequest();
+        Book second = entityResolver.resolve(Book.class, book.getId(), true);
+
+        assertNotSame(first, second);
+        assertEquals("Cached book", second.getBookName());
+    }
+
+    @Test
+    public void oneRequestSeesOneInstancePerEntity() {
+        startRequest();
+        entityResolver.resolve(Review.class, review.getId(), true);
+
+        startRequest();
+        Review cachedReview = entityResolver.resolve(Review.class, review.getId(), true);
+        Book cachedBook = entityResolver.resolve(Book.class, book.getId(), true);
+
+        assertSame(cachedBook, cachedReview.getBook());
+    }
+
+    @Test
+    public void writeRequestLoadsPastTheCache() {
+        startRequest();
+        entityResolver.resolve(Book.class, book.getId(), true);
+        jdbcTemplate.update("update book set book_name = ? where id = ?", "Renamed", book.getId());
+
+        startRequest();
+        assertEquals("Cached book", entityResolver.resolve(Book.class, book.getId(), true).getBookName());
+
+        startRequest();
+        assertEquals("Renamed", entityResolver.resolve(Book.class, book.getId(), false).getBookName());
+    }
+
+    @Test
+    public void evictedBookIsLoadedAgain() {
+        startRequest();
+        entityResolver.resolve(Review.class, review.getId(), true);
+        jdbcTemplate.update("update book set book_name = ? where id = ?", "Renamed", book.getId());
+
+        entityResolver.evict(new OutboxEvent(DomainEventType.BOOK_UPDATED, book.getId(), null));
+
+        startRequest();
+        assertEquals("Renamed", entityResolver.resolve(Review.class, review.getId(), true).getBook().getBookName());
+        startRequest();
+        assertEquals("Renamed", entityResolver.resolve(Book.class, book.getId(), true).getBookName());
+    }
+
+
+    private void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+}
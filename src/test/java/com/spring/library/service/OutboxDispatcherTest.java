@@ -0,0 +1,196 @@
+package com.spring.library.service;
+
+import com.spring.library.IntegrationTest;
+import com.spring.library.domain.DomainEventType;
+import com.spring.library.domain.OutboxDeliveryStatus;
+import com.spring.library.domain.OutboxEvent;
+import com.spring.library.repos.OutboxEventRepo;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Two subscribers, one of them fails on the aggregates it is told to; the test profile
+ * retries without backoff and gives up after three attempts.
+ */
+public class OutboxDispatcherTest extends IntegrationTest {
+
+    @TestConfiguration
+    static class Subscribers {
+        @Bean
+        public ReliableSubscriber reliableSubscriber() {
+            return new ReliableSubscriber();
+        }
+
+        @Bean
+        public FailingSubscriber failingSubscriber() {
+            return new FailingSubscriber();
+        }
+    }
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepo outboxEventRepo;
+
+    @Autowired
+    private ReliableSubscriber reliableSubscriber;
+
+    @Autowired
+    private FailingSubscriber failingSubscriber;
+
+
+    @Before
+    public void resetSubscribers() {
+        reliableSubscriber.reset();
+        failingSubscriber.reset();
+    }
+
+
+    @Test
+    public void everySubscriberGetsEveryEventOnce() {
+        List<Long> events = saveEvents(1L, 2L, 3L);
+
+        outboxDispatcher.dispatch();
+        outboxDispatcher.dispatch();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), reliableSubscriber.getAggregateIds());
+        assertEquals(Arrays.asList(1L, 2L, 3L), failingSubscriber.getAggregateIds());
+        for (Long event : events) {
+            assertTrue(outboxEventRepo.findById(event).get().isDispatched());
+            assertDelivery(ReliableSubscriber.class, event, OutboxDeliveryStatus.DELIVERED, 1);
+            assertDelivery(FailingSubscriber.class, event, OutboxDeliveryStatus.DELIVERED, 1);
+        }
+    }
+
+    @Test
+    public void failedEventHoldsUpTheLaterEventsOfItsSubscriberOnly() {
+        List<Long> events = saveEvents(1L, 2L, 3L);
+        failingSubscriber.failOn(2L);
+
+        outboxDispatcher.dispatch();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), reliableSubscriber.getAggregateIds());
+        assertEquals(Collections.singletonList(1L), failingSubscriber.getAggregateIds());
+        assertDelivery(FailingSubscriber.class, events.get(1), OutboxDeliveryStatus.PENDING, 1);
+        assertDelivery(FailingSubscriber.class, events.get(2), OutboxDeliveryStatus.PENDING, 0);
+
+        failingSubscriber.reset();
+        outboxDispatcher.dispatch();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), reliableSubscriber.getAggregateIds());
+        assertEquals(Arrays.asList(2L, 3L), failingSubscriber.getAggregateIds());
+        assertDelivery(FailingSubscriber.class, events.get(1), OutboxDeliveryStatus.DELIVERED, 2);
+        assertDelivery(FailingSubscriber.class, events.get(2), OutboxDeliveryStatus.DELIVERED, 1);
+    }
+
+    @Test
+    public void eventBackingOffHoldsUpTheLaterOnes() {
+        List<Long> events = saveEvents(1L, 2L);
+        failingSubscriber.failOn(1L);
+        Object backoffMillis = ReflectionTestUtils.getField(outboxDispatcher, "backoffMillis");
+        ReflectionTestUtils.setField(outboxDispatcher, "backoffMillis", 60_000L);
+        try {
+            outboxDispatcher.dispatch();
+            failingSubscriber.reset();
+            outboxDispatcher.dispatch();
+        } finally {
+            ReflectionTestUtils.setField(outboxDispatcher, "backoffMillis", backoffMillis);
+        }
+
+        assertTrue(failingSubscriber.getAggregateIds().isEmpty());
+        assertEquals(Arrays.asList(1L, 2L), reliableSubscriber.getAggregateIds());
+        assertDelivery(FailingSubscriber.class, events.get(0), OutboxDeliveryStatus.PENDING, 1);
+        assertDelivery(FailingSubscriber.class, events.get(1), OutboxDeliveryStatus.PENDING, 0);
+    }
+
+    @Test
+    public void poisonEventIsDeadAfterMaxAttemptsAndThenSkipped() {
+        List<Long> events = saveEvents(1L, 2L);
+        failingSubscriber.failOn(1L);
+
+        for (int i = 0; i < 4; i++) {
+            outboxDispatcher.dispatch();
+        }
+
+        assertEquals(Collections.singletonList(2L), failingSubscriber.getAggregateIds());
+        assertDelivery(FailingSubscriber.class, events.get(0), OutboxDeliveryStatus.DEAD, 3);
+
+        saveEvents(3L);
+        outboxDispatcher.dispatch();
+
+        assertEquals(Arrays.asList(2L, 3L), failingSubscriber.getAggregateIds());
+        assertEquals(Arrays.asList(1L, 2L, 3L), reliableSubscriber.getAggregateIds());
+    }
+
+
+    private List<Long> saveEvents(Long... aggregateIds) {
+        List<Long> ids = new ArrayList<>();
+        for (Long aggregateId : aggregateIds) {
+            ids.add(outboxEventRepo.save(new OutboxEvent(DomainEventType.BOOK_UPDATED, aggregateId, null)).getId());
+        }
+        return ids;
+    }
+
+    private void assertDelivery(Class<?> subscriber, Long eventId, OutboxDeliveryStatus status, int attempts) {
+        Map<String, Object> delivery = jdbcTemplate.queryForMap(
+                "select status, attempts from outbox_delivery where subscriber = ? and event_id = ?",
+                subscriber.getName(), eventId);
+        assertEquals(status.name(), delivery.get("status"));
+        assertEquals(attempts, ((Number) delivery.get("attempts")).intValue());
+    }
+
+
+    static abstract class RecordingSubscriber implements DomainEventSubscriber {
+        private final List<Long> aggregateIds = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEvent(OutboxEvent event) {
+            aggregateIds.add(event.getAggregateId());
+        }
+
+        public List<Long> getAggregateIds() {
+            return new ArrayList<>(aggregateIds);
+        }
+
+        public void reset() {
+            aggregateIds.clear();
+        }
+    }
+
+    static class ReliableSubscriber extends RecordingSubscriber {
+    }
+
+    static class FailingSubscriber extends RecordingSubscriber {
+        private final Set<Long> failingAggregateIds = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void onEvent(OutboxEvent event) {
+            if (failingAggregateIds.contains(event.getAggregateId())) {
+                throw new IllegalStateException("POISON EVENT " + event.getId());
+            }
+            super.onEvent(event);
+        }
+
+        public void failOn(Long aggregateId) {
+            failingAggregateIds.add(aggregateId);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            failingAggregateIds.clear();
+        }
+    }
+}
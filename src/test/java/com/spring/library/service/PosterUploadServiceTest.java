@@ -0,0 +1,232 @@
+package com.spring.library.service;
+
+import com.spring.library.IntegrationTest;
+import com.spring.library.service.PosterUploadService.PosterUpload;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/* small chunks, so a generated poster of a few kilobytes takes many of them */
+public class PosterUploadServiceTest extends IntegrationTest {
+    private static final int CHUNK_SIZE = 64;
+
+    @Value("${upload.path}")
+    private String uploadPath;
+
+    @Autowired
+    private PosterUploadService posterUploadService;
+
+    private Object originalChunkSize;
+
+
+    @Before
+    public void useSmallChunks() {
+        originalChunkSize = ReflectionTestUtils.getField(posterUploadService, "chunkSize");
+        ReflectionTestUtils.setField(posterUploadService, "chunkSize", CHUNK_SIZE);
+    }
+
+    @After
+    public void restoreChunkSize() {
+        ReflectionTestUtils.setField(posterUploadService, "chunkSize", originalChunkSize);
+    }
+
+
+    @Test
+    public void chunksInAnyOrderAndRepeatedMakeThePoster() throws IOException {
+        byte[] poster = poster();
+        PosterUpload upload = start(poster, sha256(poster));
+        assertTrue(upload.getChunkCount() > 2);
+
+        for (int index = upload.getChunkCount() - 1; index >= 0; index--) {
+            writeChunk(upload, index, poster);
+        }
+        writeChunk(upload, 0, poster);
+        writeChunk(upload, upload.getChunkCount() - 1, poster);
+
+        posterUploadService.completeUpload(upload.getToken());
+
+        assertTrue(upload.isCompleted());
+        assertTrue(posterUploadService.isCompletedUpload(upload.getToken()));
+        assertArrayEquals(poster, Files.readAllBytes(Paths.get(uploadPath, upload.getPosterFilename())));
+        assertFalse(Files.exists(upload.getPartialFile()));
+    }
+
+    @Test
+    public void chunkLongerThanItsPartIsRefused() throws IOException {
+        byte[] poster = poster();
+        PosterUpload upload = start(poster, sha256(poster));
+
+        assertRefused(HttpStatus.BAD_REQUEST, "CHUNK TOO LARGE",
+                () -> posterUploadService.writeChunk(upload.getToken(), 0, new ByteArrayInputStream(new byte[CHUNK_SIZE + 1])));
+        assertEquals(0, upload.getReceivedChunkCount());
+    }
+
+    @Test
+    public void shortChunkIsRefused() throws IOException {
+        byte[] poster = poster();
+        PosterUpload upload = start(poster, sha256(poster));
+
+        assertRefused(HttpStatus.BAD_REQUEST, "INCOMPLETE CHUNK",
+                () -> posterUploadService.writeChunk(upload.getToken(), 0, new ByteArrayInputStream(new byte[CHUNK_SIZE - 1])));
+        assertEquals(0, upload.getReceivedChunkCount());
+    }
+
+    @Test
+    public void uploadWithAMissingChunkIsNotCompleted() throws IOException {
+        byte[] poster = poster();
+        PosterUpload upload = start(poster, sha256(poster));
+        for (int index = 0; index < upload.getChunkCount(); index += 2) {
+            writeChunk(upload, index, poster);
+        }
+
+        assertRefused(HttpStatus.CONFLICT, "UPLOAD HAS MISSING CHUNKS",
+                () -> posterUploadService.completeUpload(upload.getToken()));
+        assertEquals(1, upload.getMissingChunk());
+    }
+
+    @Test
+    public void checksumMismatchDiscardsTheUpload() throws IOException {
+        byte[] poster = poster();
+        byte[] other = Arrays.copyOf(poster, poster.length);
+        other[other.length - 1] ^= 1;
+        PosterUpload upload = start(poster, sha256(other));
+        writeAllChunks(upload, poster);
+
+        assertRefused(HttpStatus.UNPROCESSABLE_ENTITY, "INCORRECT POSTER FILE",
+                () -> posterUploadService.completeUpload(upload.getToken()));
+        assertFalse(Files.exists(upload.getPartialFile()));
+        assertRefused(HttpStatus.NOT_FOUND, "UPLOAD NOT FOUND", () -> posterUploadService.getUpload(upload.getToken()));
+    }
+
+    @Test
+    public void payloadThatIsNotAnImageIsRefused() throws IOException {
+        byte[] text = new byte[3 * CHUNK_SIZE];
+        Arrays.fill(text, (byte) 'a');
+        PosterUpload upload = start(text, sha256(text));
+        writeAllChunks(upload, text);
+
+        assertRefused(HttpStatus.UNPROCESSABLE_ENTITY, "INCORRECT POSTER FILE",
+                () -> posterUploadService.completeUpload(upload.getToken()));
+        assertFalse(posterUploadService.isCompletedUpload(upload.getToken()));
+    }
+
+    @Test
+    public void uploadsExpireByTheirLastAccess() throws IOException {
+        byte[] poster = poster();
+        PosterUpload idle = start(poster, sha256(poster));
+        PosterUpload recentlyRead = start(poster, sha256(poster));
+        PosterUpload completed = start(poster, sha256(poster));
+        writeAllChunks(completed, poster);
+        posterUploadService.completeUpload(completed.getToken());
+
+        long longAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+        for (PosterUpload upload : Arrays.asList(idle, recentlyRead, completed)) {
+            ReflectionTestUtils.setField(upload, "lastAccessAt", longAgo);
+        }
+        // created just as long ago as the others, but its status was asked for
+        posterUploadService.getUpload(recentlyRead.getToken());
+
+        posterUploadService.removeExpiredUploads();
+
+        assertRefused(HttpStatus.NOT_FOUND, "UPLOAD NOT FOUND", () -> posterUploadService.getUpload(idle.getToken()));
+        assertFalse(Files.exists(idle.getPartialFile()));
+        assertSame(recentlyRead, posterUploadService.getUpload(recentlyRead.getToken()));
+        assertTrue(Files.exists(recentlyRead.getPartialFile()));
+        assertFalse(posterUploadService.isCompletedUpload(completed.getToken()));
+        assertFalse(Files.exists(Paths.get(uploadPath, completed.getPosterFilename())));
+    }
+
+    @Test
+    public void posterFilenameIsTakenOnlyOnce() throws IOException {
+        byte[] poster = poster();
+        PosterUpload upload = start(poster, sha256(poster));
+        writeAllChunks(upload, poster);
+        posterUploadService.completeUpload(upload.getToken());
+
+        assertEquals(upload.getPosterFilename(), posterUploadService.takePosterFilename(upload.getToken()));
+        assertNull(posterUploadService.takePosterFilename(upload.getToken()));
+        assertFalse(posterUploadService.isCompletedUpload(upload.getToken()));
+
+        // the book owns the poster now, expiry no longer deletes it
+        Path posterFile = Paths.get(uploadPath, upload.getPosterFilename());
+        ReflectionTestUtils.setField(upload, "lastAccessAt", 0L);
+        posterUploadService.removeExpiredUploads();
+        assertTrue(Files.exists(posterFile));
+    }
+
+
+    private interface Call {
+        void run() throws IOException;
+    }
+
+    private static void assertRefused(HttpStatus status, String reason, Call call) throws IOException {
+        try {
+            call.run();
+            fail("expected " + reason);
+        } catch (ResponseStatusException e) {
+            assertEquals(status, e.getStatus());
+            assertEquals(reason, e.getReason());
+        }
+    }
+
+    private PosterUpload start(byte[] content, String sha256) throws IOException {
+        return posterUploadService.startUpload("poster.png", content.length, sha256);
+    }
+
+    private void writeAllChunks(PosterUpload upload, byte[] content) throws IOException {
+        for (int index = 0; index < upload.getChunkCount(); index++) {
+            writeChunk(upload, index, content);
+        }
+    }
+
+    private void writeChunk(PosterUpload upload, int index, byte[] content) throws IOException {
+        int from = index * CHUNK_SIZE;
+        byte[] chunk = Arrays.copyOfRange(content, from, Math.min(from + CHUNK_SIZE, content.length));
+        posterUploadService.writeChunk(upload.getToken(), index, new ByteArrayInputStream(chunk));
+    }
+
+    private static byte[] poster() throws IOException {
+        BufferedImage image = new BufferedImage(40, 60, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, x * 0x040000 + y * 0x000400 + (x ^ y));
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}